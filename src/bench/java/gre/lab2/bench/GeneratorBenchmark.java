@@ -0,0 +1,35 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.GridGraph;
+import gre.lab2.groupe11.KruskalMazeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KruskalMazeGenerator} against a builder discarding every
+ * modification, so that only the generator is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+  @Param({"64", "256", "1024", "4096"})
+  public int side;
+
+  private Mazes.NoOpMazeBuilder builder;
+
+  @Setup
+  public void setup() {
+    GridGraph topology = Mazes.topology(side);
+    builder = new Mazes.NoOpMazeBuilder(topology);
+  }
+
+  @Benchmark
+  public void kruskal() {
+    new KruskalMazeGenerator(Mazes.SEED).generate(builder, 0);
+  }
+}
@@ -0,0 +1,57 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.Edge;
+import gre.lab2.graph.GridGraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GridGraph} accessors on a full grid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+  private static final int BATCH = 1024;
+
+  @Param({"64", "256", "1024", "4096"})
+  public int side;
+
+  private GridGraph grid;
+  private int[] vertices;
+
+  @Setup
+  public void setup() {
+    grid = Mazes.topology(side);
+    vertices = Mazes.randomVertices(grid.nbVertices(), BATCH, Mazes.SEED);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void neighbors(Blackhole blackhole) {
+    for (int v : vertices)
+      blackhole.consume(grid.neighbors(v));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void areAdjacent(Blackhole blackhole) {
+    for (int v : vertices)
+      blackhole.consume(grid.areAdjacent(v, v + 1 < grid.nbVertices() ? v + 1 : v - 1));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public List<Edge> edges() {
+    return grid.edges();
+  }
+}
@@ -0,0 +1,116 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.FrozenGridGraph;
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.GridGraph2D;
+import gre.lab2.graph.IntVertexLabelling;
+import gre.lab2.graph.TiledGridGraph;
+import gre.lab2.groupe11.BfsSolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage layouts of the same perfect maze on wide grids: {@link GridGraph}
+ * (4 bytes per cell, row-major), {@link FrozenGridGraph} (2 bits per cell,
+ * row-major) and {@link TiledGridGraph} (2 bits per cell, 8x8 tiles).
+ * <p>
+ * {@code bfs} solves between opposite corners, {@code paint} reads the
+ * neighbours of every cell in row order like the painter does, and
+ * {@code flood} is a breadth-first traversal without boxing, through the
+ * {@code neighbors(int, int[])} every layout offers, so that the memory
+ * accesses of the layout dominate. Run with {@code -prof perfnorm} to
+ * get the L1 and LLC misses per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LayoutBenchmark {
+  @Param({"65536x64", "16384x256", "4096x4096"})
+  public String shape;
+
+  @Param({"grid", "frozen", "tiled"})
+  public String layout;
+
+  private GridGraph2D maze;
+  private int[] treatments;
+  private IntVertexLabelling labels;
+
+  @Setup
+  public void setup() {
+    String[] size = shape.split("x");
+    GridGraph source = Mazes.perfectMaze(Integer.parseInt(size[0]), Integer.parseInt(size[1]), Mazes.SEED);
+    maze = switch (layout) {
+      case "grid" -> source;
+      case "frozen" -> FrozenGridGraph.copyOf(source);
+      case "tiled" -> TiledGridGraph.copyOf(source);
+      default -> throw new IllegalArgumentException("Unknown layout: " + layout);
+    };
+
+    treatments = new int[maze.nbVertices()];
+    labels = new IntVertexLabelling() {
+      @Override
+      public int getInt(int v) {
+        return treatments[v];
+      }
+
+      @Override
+      public void setInt(int v, int label) {
+        treatments[v] = label;
+      }
+    };
+  }
+
+  @Setup(Level.Invocation)
+  public void clearTreatments() {
+    Arrays.fill(treatments, 0);
+  }
+
+  @Benchmark
+  public int flood() {
+    int[] queue = treatments;
+    int[] buffer = new int[4];
+    boolean[] visited = new boolean[maze.nbVertices()];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = 0;
+    visited[0] = true;
+
+    while (head < tail) {
+      int v = queue[head++];
+      int count = neighbors(v, buffer);
+      for (int i = 0; i < count; ++i) {
+        if (!visited[buffer[i]]) {
+          visited[buffer[i]] = true;
+          queue[tail++] = buffer[i];
+        }
+      }
+    }
+    return tail;
+  }
+
+  @Benchmark
+  public List<Integer> bfs() {
+    return new BfsSolver().solve(maze, 0, maze.nbVertices() - 1, labels);
+  }
+
+  @Benchmark
+  public void paint(Blackhole blackhole) {
+    for (int v = 0; v < maze.nbVertices(); ++v)
+      blackhole.consume(maze.neighbors(v));
+  }
+
+  private int neighbors(int v, int[] out) {
+    if (maze instanceof GridGraph grid)
+      return grid.neighbors(v, out);
+    if (maze instanceof FrozenGridGraph frozen)
+      return frozen.neighbors(v, out);
+    return ((TiledGridGraph) maze).neighbors(v, out);
+  }
+}
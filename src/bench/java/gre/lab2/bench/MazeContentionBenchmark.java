@@ -0,0 +1,174 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.Edge;
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.GridGraph2D;
+import gre.lab2.groupe11.KruskalMazeGenerator;
+import gre.lab2.gui.impl.ObservableMaze;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark of {@link ObservableMaze}: one writer toggles walls
+ * while 1 to N readers query {@code areAdjacent} and {@code neighbors}, as the
+ * painter does on the FX thread while a solver runs. The same workload runs
+ * on a plain {@link GridGraph} behind a single monitor, matching the former
+ * {@code synchronized} implementation, as a baseline.
+ * <p>
+ * The writer spins for a configurable number of iterations between two
+ * toggles to mimic the work a generator or solver does between mutations; 0
+ * gives a saturating writer, the worst case for optimistic reads.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench.main=gre.lab2.bench.MazeContentionBenchmark
+ * -Dbench.args="512 8 2 64"}.
+ * Arguments: {@code [side] [max readers] [seconds per run] [writer think spins]}.
+ */
+public final class MazeContentionBenchmark {
+  /** Results of the readers, published so that their reads can't be eliminated as dead code */
+  private static volatile long blackhole;
+
+  private MazeContentionBenchmark() {}
+
+  public static void main(String[] args) throws InterruptedException {
+    int side = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+    int maxReaders = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() - 1;
+    double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+    int think = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+    // Warm-up of both code paths before measuring
+    ObservableMaze warmUp = newMaze(side);
+    run(null, warmUp, 1, seconds, think);
+    run(null, new SynchronizedGrid(copyOf(warmUp)), 1, seconds, think);
+
+    System.out.printf("%-14s %8s %16s %16s%n", "variant", "readers", "reads/s", "writes/s");
+    for (int readers = 1; readers <= Math.max(1, maxReaders); readers *= 2) {
+      ObservableMaze maze = newMaze(side);
+      run("stamped", maze, readers, seconds, think);
+      run("synchronized", new SynchronizedGrid(copyOf(maze)), readers, seconds, think);
+    }
+  }
+
+  private static ObservableMaze newMaze(int side) {
+    GridGraph topology = new GridGraph(side);
+    GridGraph.bindAll(topology);
+    ObservableMaze maze = new ObservableMaze(topology, new GridGraph(side));
+    new KruskalMazeGenerator().generate(maze, 0);
+    return maze;
+  }
+
+  private static GridGraph copyOf(GridGraph2D maze) {
+    GridGraph copy = new GridGraph(maze.width(), maze.height());
+    for (Edge e : maze.edges())
+      copy.addEdge(e.u(), e.v());
+    return copy;
+  }
+
+  private static void run(String name, GridGraph2D maze, int readers, double seconds, int think) throws InterruptedException {
+    AtomicBoolean running = new AtomicBoolean(true);
+    LongAdder reads = new LongAdder();
+    LongAdder writes = new LongAdder();
+    CountDownLatch done = new CountDownLatch(readers + 1);
+    List<Edge> edges = maze.edges();
+
+    Thread writer = new Thread(() -> {
+      Random random = new Random(1);
+      while (running.get()) {
+        Edge e = edges.get(random.nextInt(edges.size()));
+        maze.removeEdge(e.u(), e.v());
+        maze.addEdge(e.u(), e.v());
+        writes.add(2);
+        for (int i = 0; i < think; ++i)
+          Thread.onSpinWait();
+      }
+      done.countDown();
+    });
+    writer.start();
+
+    for (int r = 0; r < readers; ++r) {
+      long seed = r;
+      new Thread(() -> {
+        Random random = new Random(seed);
+        int n = maze.nbVertices();
+        long count = 0;
+        long sink = 0;
+        while (running.get()) {
+          int v = random.nextInt(n);
+          sink += maze.neighbors(v).size();
+          if (v + 1 < n && maze.areAdjacent(v, v + 1))
+            ++sink;
+          count += 2;
+        }
+        reads.add(count);
+        blackhole = sink;
+        done.countDown();
+      }).start();
+    }
+
+    Thread.sleep((long) (seconds * 1000));
+    running.set(false);
+    done.await();
+
+    if (name != null)
+      System.out.printf("%-14s %8d %16.0f %16.0f%n", name, readers, reads.sum() / seconds, writes.sum() / seconds);
+  }
+
+  /**
+   * Baseline reproducing the monitor on every read and write.
+   */
+  private static final class SynchronizedGrid implements GridGraph2D {
+    private final GridGraph2D delegate;
+
+    private SynchronizedGrid(GridGraph2D delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized List<Integer> neighbors(int v) {
+      return delegate.neighbors(v);
+    }
+
+    @Override
+    public synchronized List<Edge> edges() {
+      return delegate.edges();
+    }
+
+    @Override
+    public synchronized boolean areAdjacent(int u, int v) {
+      return delegate.areAdjacent(u, v);
+    }
+
+    @Override
+    public synchronized int nbVertices() {
+      return delegate.nbVertices();
+    }
+
+    @Override
+    public synchronized boolean vertexExists(int v) {
+      return delegate.vertexExists(v);
+    }
+
+    @Override
+    public synchronized void addEdge(int u, int v) {
+      delegate.addEdge(u, v);
+    }
+
+    @Override
+    public synchronized void removeEdge(int u, int v) {
+      delegate.removeEdge(u, v);
+    }
+
+    @Override
+    public synchronized int width() {
+      return delegate.width();
+    }
+
+    @Override
+    public synchronized int height() {
+      return delegate.height();
+    }
+  }
+}
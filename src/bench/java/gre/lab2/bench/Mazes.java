@@ -0,0 +1,89 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.Graph;
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.VertexLabelling;
+import gre.lab2.groupe11.KruskalMazeGenerator;
+import gre.lab2.gui.GridMazeBuilder;
+import gre.lab2.gui.MazeBuilder;
+import gre.lab2.gui.Progression;
+
+import java.util.SplittableRandom;
+
+/**
+ * Headless fixtures shared by the benchmarks, none of them needs JavaFX.
+ */
+final class Mazes {
+  static final long SEED = 42;
+
+  private Mazes() {}
+
+  /**
+   * @return A full grid, every cell linked to its neighbours.
+   */
+  static GridGraph topology(int side) {
+    GridGraph topology = new GridGraph(side);
+    GridGraph.bindAll(topology);
+    return topology;
+  }
+
+  /**
+   * @return A perfect maze generated by Kruskal with the given seed.
+   */
+  static GridGraph perfectMaze(int side, long seed) {
+    return perfectMaze(side, side, seed);
+  }
+
+  /**
+   * @return A rectangular perfect maze generated by Kruskal with the given seed.
+   */
+  static GridGraph perfectMaze(int width, int height, long seed) {
+    GridMazeBuilder builder = new GridMazeBuilder(width, height);
+    new KruskalMazeGenerator(seed).generate(builder, 0);
+    return builder.maze();
+  }
+
+  /**
+   * @return {@code count} vertices drawn uniformly with a fixed seed.
+   */
+  static int[] randomVertices(int nbVertices, int count, long seed) {
+    return new SplittableRandom(seed).ints(count, 0, nbVertices).toArray();
+  }
+
+  /**
+   * Builder discarding every modification, isolates the cost of the generator itself.
+   */
+  static final class NoOpMazeBuilder implements MazeBuilder {
+    private static final VertexLabelling<Progression> NO_LABELS = new VertexLabelling<>() {
+      @Override
+      public Progression getLabel(int v) {
+        return Progression.PENDING;
+      }
+
+      @Override
+      public void setLabel(int v, Progression label) {}
+    };
+
+    private final Graph topology;
+
+    NoOpMazeBuilder(Graph topology) {
+      this.topology = topology;
+    }
+
+    @Override
+    public Graph topology() {
+      return topology;
+    }
+
+    @Override
+    public VertexLabelling<Progression> progressions() {
+      return NO_LABELS;
+    }
+
+    @Override
+    public void addWall(int u, int v) {}
+
+    @Override
+    public void removeWall(int u, int v) {}
+  }
+}
@@ -0,0 +1,295 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.IntVertexLabelling;
+import gre.lab2.gui.GridMazeBuilder;
+import gre.lab2.gui.InstanceProvider;
+import gre.lab2.gui.MazeGenerator;
+import gre.lab2.gui.MazeSolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * End-to-end scalability harness: generates then solves mazes of growing
+ * size with every {@link InstanceProvider} found by {@link ServiceLoader}, on
+ * 1, 2, 4... then N threads, each working on its own maze.
+ * <p>
+ * Each run records wall time, generation and solve times, cells per second,
+ * peak heap, off-heap usage (non-heap pools and direct/mapped buffers) and
+ * GC count and time. Results are written as JSON, one run per line with a
+ * fixed key order, so that reports of two builds can be diffed directly.
+ * <p>
+ * Sizes whose estimated footprint exceeds the maximum heap are skipped, as
+ * are runs failing with an error; both are reported with their reason. Sizes
+ * are also bounded by {@link GridGraph#MAX_VERTICES}: the generators
+ * build on {@link GridGraph}, which cannot hold more cells. With the default of
+ * {@code 1e8} cells, the largest run needs about 13 GB of heap per thread.
+ * <p>
+ * Run with {@code mvn -Pbench test-compile exec:exec -Dbench.main=gre.lab2.bench.ScalabilityHarness
+ * -Dbench.jvmArgs=-Xmx8g -Dbench.args="--max-cells=1e8 --threads=4 --out=target/scalability.json"}.
+ */
+public final class ScalabilityHarness {
+  /**
+   * Rough bytes per cell of a run: topology and maze grids (4 booleans each),
+   * the shuffled edge list, union-find and solver arrays; about 125 measured.
+   */
+  private static final long BYTES_PER_CELL = 128;
+
+  private ScalabilityHarness() {}
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Map<String, String> options = parse(args);
+    long minCells = (long) Double.parseDouble(options.getOrDefault("min-cells", "1e4"));
+    long maxCells = (long) Double.parseDouble(options.getOrDefault("max-cells", "1e8"));
+    int maxThreads = Integer.parseInt(options.getOrDefault("threads",
+          String.valueOf(Runtime.getRuntime().availableProcessors())));
+    Path out = Path.of(options.getOrDefault("out", "target/scalability.json"));
+    if (maxThreads < 1)
+      throw new IllegalArgumentException("Expected at least 1 thread: " + maxThreads);
+
+    List<InstanceProvider> providers = new ArrayList<>();
+    ServiceLoader.load(InstanceProvider.class).forEach(providers::add);
+    if (providers.isEmpty())
+      throw new IllegalStateException("No InstanceProvider found");
+
+    if (out.getParent() != null)
+      Files.createDirectories(out.getParent());
+    try (Writer writer = Files.newBufferedWriter(out)) {
+      writer.write("{\"jvm\":" + jvm() + ",\"runs\":[\n");
+      boolean first = true;
+      for (InstanceProvider provider : providers) {
+        for (long cells = minCells; cells <= maxCells; cells *= 10) {
+          int side = (int) Math.round(Math.sqrt(cells));
+          for (int threads : threadCounts(maxThreads)) {
+            String run = run(provider, side, threads);
+            System.out.println(run);
+            writer.write((first ? "" : ",\n") + run);
+            writer.flush();
+            first = false;
+          }
+        }
+      }
+      writer.write("\n]}\n");
+    }
+    System.out.println("Report written to " + out.toAbsolutePath());
+  }
+
+  private static String run(InstanceProvider provider, int side, int threads) throws InterruptedException {
+    long cells = (long) side * side;
+    Json json = new Json()
+          .put("provider", provider.getClass().getName())
+          .put("generator", provider.generator().getClass().getName())
+          .put("solver", provider.solver().getClass().getName())
+          .put("side", side)
+          .put("cells", cells)
+          .put("threads", threads);
+
+    if (cells > GridGraph.MAX_VERTICES)
+      return json.put("status", "skipped")
+            .put("reason", cells + " cells exceed the GridGraph limit of " + GridGraph.MAX_VERTICES)
+            .toString();
+
+    long footprint = BYTES_PER_CELL * cells * threads;
+    if (footprint > Runtime.getRuntime().maxMemory())
+      return json.put("status", "skipped")
+            .put("reason", "estimated footprint " + footprint + " B exceeds max heap")
+            .toString();
+
+    System.gc();
+    List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+    pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    long gcCount = gcCount();
+    long gcTime = gcTime();
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<long[]>> jobs = new ArrayList<>(threads);
+    long start = System.nanoTime();
+    for (int t = 0; t < threads; ++t)
+      jobs.add(executor.submit(() -> job(provider, side)));
+
+    long generation = 0;
+    long solve = 0;
+    try {
+      for (Future<long[]> job : jobs) {
+        long[] times = job.get();
+        generation = Math.max(generation, times[0]);
+        solve = Math.max(solve, times[1]);
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      return json.put("status", "failed").put("reason", String.valueOf(cause)).toString();
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    long wall = System.nanoTime() - start;
+
+    return json.put("status", "ok")
+          .put("wallMs", wall / 1e6)
+          .put("generationMs", generation / 1e6)
+          .put("solveMs", solve / 1e6)
+          .put("cellsPerSecond", cells * threads / (wall / 1e9))
+          .put("peakHeapBytes", peak(pools, MemoryType.HEAP))
+          .put("peakNonHeapBytes", peak(pools, MemoryType.NON_HEAP))
+          .put("bufferPoolBytes", bufferPools())
+          .put("gcCount", gcCount() - gcCount)
+          .put("gcTimeMs", gcTime() - gcTime)
+          .toString();
+  }
+
+  /**
+   * Generates a maze then solves it between opposite corners.
+   *
+   * @return Generation and solve times in nanoseconds.
+   */
+  private static long[] job(InstanceProvider provider, int side) {
+    GridMazeBuilder builder = new GridMazeBuilder(side, side);
+    MazeGenerator generator = provider.generator();
+
+    long start = System.nanoTime();
+    generator.generate(builder, 0);
+    long generated = System.nanoTime();
+    GridGraph maze = builder.maze();
+
+    int[] treatments = new int[maze.nbVertices()];
+    MazeSolver solver = provider.solver();
+    List<Integer> path = solver.solve(maze, 0, maze.nbVertices() - 1, new IntVertexLabelling() {
+      @Override
+      public int getInt(int v) {
+        return treatments[v];
+      }
+
+      @Override
+      public void setInt(int v, int label) {
+        treatments[v] = label;
+      }
+    });
+    long solved = System.nanoTime();
+
+    if (path.isEmpty())
+      throw new IllegalStateException("No path found in a " + side + "x" + side + " maze");
+    return new long[] { generated - start, solved - generated };
+  }
+
+  /**
+   * @return Powers of two below {@code maxThreads}, then {@code maxThreads}.
+   */
+  private static List<Integer> threadCounts(int maxThreads) {
+    List<Integer> counts = new ArrayList<>();
+    for (int threads = 1; threads < maxThreads; threads *= 2)
+      counts.add(threads);
+    counts.add(maxThreads);
+    return counts;
+  }
+
+  private static long peak(List<MemoryPoolMXBean> pools, MemoryType type) {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : pools) {
+      if (pool.getType() == type && pool.getPeakUsage() != null)
+        peak += pool.getPeakUsage().getUsed();
+    }
+    return peak;
+  }
+
+  private static long bufferPools() {
+    long used = 0;
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+      used += pool.getMemoryUsed();
+    return used;
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+      count += Math.max(0, gc.getCollectionCount());
+    return count;
+  }
+
+  private static long gcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+      time += Math.max(0, gc.getCollectionTime());
+    return time;
+  }
+
+  private static String jvm() {
+    return new Json()
+          .put("version", System.getProperty("java.vm.version"))
+          .put("vendor", System.getProperty("java.vm.vendor"))
+          .put("processors", Runtime.getRuntime().availableProcessors())
+          .put("maxHeapBytes", Runtime.getRuntime().maxMemory())
+          .put("gc", ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName)
+                .reduce((a, b) -> a + ", " + b)
+                .orElse(""))
+          .toString();
+  }
+
+  private static Map<String, String> parse(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--"))
+        throw new IllegalArgumentException("Unexpected argument: " + arg);
+      int eq = arg.indexOf('=');
+      if (eq < 0)
+        throw new IllegalArgumentException("Expected --name=value: " + arg);
+      options.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  /**
+   * Flat JSON object keeping insertion order.
+   */
+  private static final class Json {
+    private final StringBuilder builder = new StringBuilder("{");
+
+    Json put(String key, String value) {
+      // exception messages may span several lines
+      StringBuilder escaped = new StringBuilder(value.length() + 2).append('"');
+      for (int i = 0; i < value.length(); ++i) {
+        char c = value.charAt(i);
+        switch (c) {
+          case '"' -> escaped.append("\\\"");
+          case '\\' -> escaped.append("\\\\");
+          case '\n' -> escaped.append("\\n");
+          case '\r' -> escaped.append("\\r");
+          case '\t' -> escaped.append("\\t");
+          default -> {
+            if (c < 0x20)
+              escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            else
+              escaped.append(c);
+          }
+        }
+      }
+      return raw(key, escaped.append('"').toString());
+    }
+
+    Json put(String key, long value) {
+      return raw(key, Long.toString(value));
+    }
+
+    Json put(String key, double value) {
+      return raw(key, String.format(Locale.ROOT, "%.3f", value));
+    }
+
+    private Json raw(String key, String value) {
+      if (builder.length() > 1)
+        builder.append(',');
+      builder.append('"').append(key).append("\":").append(value);
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return builder + "}";
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package gre.lab2.bench;
+
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.IntVertexLabelling;
+import gre.lab2.groupe11.BfsSolver;
+import gre.lab2.groupe11.HierarchicalSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BfsSolver} between opposite corners of a seeded perfect maze, the
+ * path being unique it is the worst case of an exhaustive search.
+ * <p>
+ * {@link HierarchicalSolver} is measured with its clusters built by a first
+ * query ({@code hierarchical}), and from scratch ({@code hierarchicalCold}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+  @Param({"64", "256", "1024", "4096"})
+  public int side;
+
+  private GridGraph maze;
+  private int[] treatments;
+  private IntVertexLabelling labels;
+  private HierarchicalSolver hierarchical;
+
+  @Setup
+  public void setup() {
+    maze = Mazes.perfectMaze(side, Mazes.SEED);
+    treatments = new int[maze.nbVertices()];
+    labels = new IntVertexLabelling() {
+      @Override
+      public int getInt(int v) {
+        return treatments[v];
+      }
+
+      @Override
+      public void setInt(int v, int label) {
+        treatments[v] = label;
+      }
+    };
+
+    hierarchical = new HierarchicalSolver(maze);
+    hierarchical.solve(maze, 0, maze.nbVertices() - 1, labels);
+  }
+
+  @Setup(Level.Invocation)
+  public void clearTreatments() {
+    Arrays.fill(treatments, 0);
+  }
+
+  @Benchmark
+  public List<Integer> bfs() {
+    return new BfsSolver().solve(maze, 0, maze.nbVertices() - 1, labels);
+  }
+
+  @Benchmark
+  public List<Integer> hierarchical() {
+    return hierarchical.solve(maze, 0, maze.nbVertices() - 1, labels);
+  }
+
+  @Benchmark
+  public List<Integer> hierarchicalCold() {
+    return new HierarchicalSolver(maze).solve(maze, 0, maze.nbVertices() - 1, labels);
+  }
+}
@@ -0,0 +1,83 @@
+package gre.lab2.groupe11;
+
+import gre.lab2.graph.Edge;
+import gre.lab2.graph.GridGraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UnionFind} under the access pattern of Kruskal: unions along the
+ * shuffled edges of a grid, then finds on random vertices of the merged set.
+ * <p>
+ * Lives in the package of {@link UnionFind}, which is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnionFindBenchmark {
+  private static final int BATCH = 1024;
+  private static final long SEED = 42;
+
+  @Param({"64", "256", "1024", "4096"})
+  public int side;
+
+  private int nbVertices;
+  private int[] us;
+  private int[] vs;
+  private UnionFind merged;
+  private int[] vertices;
+
+  @Setup
+  public void setup() {
+    GridGraph topology = new GridGraph(side);
+    GridGraph.bindAll(topology);
+    List<Edge> edges = topology.edges();
+    Collections.shuffle(edges, new Random(SEED));
+    nbVertices = side * side;
+    us = new int[edges.size()];
+    vs = new int[edges.size()];
+    for (int i = 0; i < edges.size(); ++i) {
+      us[i] = edges.get(i).u();
+      vs[i] = edges.get(i).v();
+    }
+
+    merged = unionAll();
+    vertices = new SplittableRandom(SEED).ints(BATCH, 0, nbVertices).toArray();
+  }
+
+  /**
+   * All the unions of a Kruskal run, timed as a whole: divide by the
+   * {@code 2 * side * (side - 1)} edges of the grid for a cost per union.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public UnionFind union() {
+    return unionAll();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void find(Blackhole blackhole) {
+    for (int v : vertices)
+      blackhole.consume(merged.find(v));
+  }
+
+  private UnionFind unionAll() {
+    UnionFind uf = new UnionFind(nbVertices);
+    for (int i = 0; i < us.length; ++i)
+      uf.union(us[i], vs[i]);
+    return uf;
+  }
+}
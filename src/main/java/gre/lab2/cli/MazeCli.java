@@ -0,0 +1,315 @@
+package gre.lab2.cli;
+
+import gre.lab2.graph.ByteVertexLabelling;
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.GridGraph2D;
+import gre.lab2.gui.GridMazeBuilder;
+import gre.lab2.gui.InstanceProvider;
+import gre.lab2.gui.MazeMetrics;
+import gre.lab2.gui.MazeSolver;
+import gre.lab2.io.MazeFile;
+import gre.lab2.io.MazeImageWriter;
+import gre.lab2.server.MazeCache;
+import gre.lab2.server.MazeServer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * <p>Point d'entrée en ligne de commande, sans JavaFX : génère, résout, exporte et mesure des labyrinthes.</p>
+ *
+ * <p>Seuls {@code java.base} et les modules de la plateforme requis par l'application sont chargés, les modules
+ * JavaFX étant optionnels. Les implémentations sont découvertes par {@link ServiceLoader}, comme pour le banc
+ * d'essai.</p>
+ *
+ * <pre>
+ * maze generate SIZE [--seed S] [--out FILE]
+ * maze solve (SIZE [--seed S] | --in FILE) [--from V] [--to V] [--out IMAGE]
+ * maze export --in FILE --out IMAGE [--scale K]
+ * maze bench SIZE [--seed S] [--repeat N]
+ * maze serve [--port P] [--cache-mb M] [--max-cells N]
+ * </pre>
+ *
+ * <p>{@code SIZE} est un côté ({@code 1000}) ou des dimensions ({@code 1920x1080}). Le format de sortie est déduit
+ * de l'extension : {@code .maze} pour {@link MazeFile}, {@code .png}, {@code .pbm} ou {@code .pgm} pour
+ * {@link MazeImageWriter}.</p>
+ *
+ * <p>{@code serve} démarre un {@link MazeServer} avec toutes les implémentations découvertes et rend la main une
+ * fois le serveur démarré, le processus restant actif tant qu'il tourne.</p>
+ */
+public final class MazeCli {
+  private static final String USAGE = """
+        Usage:
+          maze generate SIZE [--seed S] [--out FILE]
+          maze solve (SIZE [--seed S] | --in FILE) [--from V] [--to V] [--out IMAGE]
+          maze export --in FILE --out IMAGE [--scale K]
+          maze bench SIZE [--seed S] [--repeat N]
+          maze serve [--port P] [--cache-mb M] [--max-cells N]
+
+        SIZE is a side (1000) or dimensions (1920x1080).
+        FILE ends with .maze; IMAGE with .png, .pbm or .pgm.""";
+
+  private final PrintStream out;
+  private final InstanceProvider provider;
+
+  private MazeCli(PrintStream out, InstanceProvider provider) {
+    this.out = out;
+    this.provider = provider;
+  }
+
+  public static void main(String[] args) {
+    // Rien à observer pour un processus aussi bref, sauf demande explicite
+    boolean serve = args.length > 0 && args[0].equals("serve");
+    if (!serve && System.getProperty(MazeMetrics.JMX_PROPERTY) == null)
+      System.setProperty(MazeMetrics.JMX_PROPERTY, "false");
+
+    try {
+      // Sans appel à exit en cas de succès, un serveur démarré garde le processus actif
+      int status = run(args, System.out);
+      if (status != 0)
+        System.exit(status);
+    } catch (IllegalArgumentException e) {
+      System.err.println("maze: " + e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+    } catch (NoSuchFileException e) {
+      System.err.println("maze: No such file: " + e.getFile());
+      System.exit(1);
+    } catch (IOException e) {
+      System.err.println("maze: " + e.getMessage());
+      System.exit(1);
+    } catch (OutOfMemoryError e) {
+      System.err.println("maze: Not enough memory, raise the maximum heap size with -Xmx");
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Exécute une commande.
+   *
+   * @param args Commande et options.
+   * @param out Flux recevant les résultats.
+   * @return Code de sortie.
+   * @throws IllegalArgumentException si la commande ou ses options sont invalides.
+   * @throws IOException en cas d'erreur de lecture ou d'écriture de fichier.
+   */
+  public static int run(String[] args, PrintStream out) throws IOException {
+    if (args.length == 0 || args[0].equals("--help") || args[0].equals("-h")) {
+      out.println(USAGE);
+      return 0;
+    }
+
+    InstanceProvider provider = ServiceLoader.load(InstanceProvider.class).findFirst()
+          .orElseThrow(() -> new IllegalStateException("No InstanceProvider found"));
+    MazeCli cli = new MazeCli(out, provider);
+    Options options = Options.parse(args, 1);
+
+    switch (args[0]) {
+      case "generate" -> cli.generate(options);
+      case "solve" -> cli.solve(options);
+      case "export" -> cli.export(options);
+      case "bench" -> cli.bench(options);
+      case "serve" -> cli.serve(options);
+      default -> throw new IllegalArgumentException("Unknown command: " + args[0]);
+    }
+    return 0;
+  }
+
+  private void generate(Options options) throws IOException {
+    int[] size = parseSize(options.positional("SIZE"));
+    long seed = options.longValue("seed", 0);
+    String file = options.value("out", null);
+    options.assertAllUsed();
+
+    long start = System.nanoTime();
+    GridGraph2D maze = generate(size, seed);
+    report("generate", size, System.nanoTime() - start);
+
+    if (file != null)
+      write(maze, seed, Path.of(file), 1, null);
+  }
+
+  private void solve(Options options) throws IOException {
+    String in = options.value("in", null);
+    long seed = in == null ? options.longValue("seed", 0) : 0;
+    int[] size = in == null ? parseSize(options.positional("SIZE")) : null;
+    int source = (int) options.longValue("from", 0);
+    long to = options.longValue("to", -1);
+    String image = options.value("out", null);
+    options.assertAllUsed();
+
+    GridGraph2D maze;
+    if (in != null) {
+      MazeFile file = MazeFile.open(Path.of(in));
+      maze = file.graph();
+      seed = file.seed();
+    } else {
+      maze = generate(size, seed);
+    }
+
+    // Par défaut, jusqu'au coin opposé
+    int destination = to < 0 ? maze.nbVertices() - 1 : (int) to;
+    if (!maze.vertexExists(source) || !maze.vertexExists(destination))
+      throw new IllegalArgumentException("Vertices must be in [0," + maze.nbVertices() + "[");
+
+    ByteVertexLabelling treatments = new ByteVertexLabelling(maze.nbVertices());
+    MazeSolver solver = provider.solver();
+    long start = System.nanoTime();
+    List<Integer> path = solver.solve(maze, source, destination, treatments);
+    long elapsed = System.nanoTime() - start;
+
+    report("solve", new int[] { maze.width(), maze.height() }, elapsed);
+    out.println("path: " + path.size() + " vertices");
+
+    if (image != null) {
+      for (int v : path)
+        treatments.setInt(v, -1);
+      write(maze, seed, Path.of(image), 1, treatments);
+    }
+  }
+
+  private void export(Options options) throws IOException {
+    Path in = Path.of(options.required("in"));
+    Path image = Path.of(options.required("out"));
+    int scale = (int) options.longValue("scale", 1);
+    options.assertAllUsed();
+
+    MazeFile file = MazeFile.open(in);
+    write(file.graph(), file.seed(), image, scale, null);
+  }
+
+  private void bench(Options options) {
+    int[] size = parseSize(options.positional("SIZE"));
+    long seed = options.longValue("seed", 0);
+    int repeat = (int) options.longValue("repeat", 5);
+    options.assertAllUsed();
+
+    for (int i = 0; i < repeat; ++i) {
+      long start = System.nanoTime();
+      GridGraph2D maze = generate(size, seed + i);
+      long generated = System.nanoTime();
+      provider.solver().solve(maze, 0, maze.nbVertices() - 1, new ByteVertexLabelling(maze.nbVertices()));
+      long solved = System.nanoTime();
+
+      out.printf(Locale.ROOT, "run %d: generate %.1f ms, solve %.1f ms, %.0f cells/s%n", i + 1,
+            (generated - start) / 1e6, (solved - generated) / 1e6, maze.nbVertices() / ((solved - start) / 1e9));
+    }
+  }
+
+  private void serve(Options options) throws IOException {
+    int port = (int) options.longValue("port", 8080);
+    long cacheBytes = options.longValue("cache-mb", 256) << 20;
+    int maxCells = (int) options.longValue("max-cells", MazeServer.DEFAULT_MAX_CELLS);
+    options.assertAllUsed();
+
+    List<InstanceProvider> providers = ServiceLoader.load(InstanceProvider.class).stream()
+          .map(ServiceLoader.Provider::get)
+          .toList();
+    MazeServer server = new MazeServer(new InetSocketAddress(port), providers, new MazeCache(cacheBytes), maxCells);
+    server.start();
+    out.println("serving " + server.generators() + " on http://localhost:" + server.address().getPort());
+  }
+
+  private GridGraph2D generate(int[] size, long seed) {
+    GridMazeBuilder builder = new GridMazeBuilder(size[0], size[1]);
+    provider.generator(seed).generate(builder, 0);
+    return builder.maze();
+  }
+
+  private void write(GridGraph2D maze, long seed, Path path, int scale, ByteVertexLabelling overlay)
+        throws IOException {
+    long start = System.nanoTime();
+    if (path.getFileName().toString().endsWith(".maze"))
+      MazeFile.write(path, maze, seed);
+    else
+      new MazeImageWriter(maze).setScale(scale).setOverlay(overlay).write(path);
+    out.printf(Locale.ROOT, "wrote %s in %.1f ms%n", path, (System.nanoTime() - start) / 1e6);
+  }
+
+  private void report(String action, int[] size, long nanos) {
+    out.printf(Locale.ROOT, "%s %dx%d in %.1f ms%n", action, size[0], size[1], nanos / 1e6);
+  }
+
+  private static int[] parseSize(String size) {
+    int width;
+    int height;
+    try {
+      int x = size.indexOf('x');
+      width = Integer.parseInt(x < 0 ? size : size.substring(0, x));
+      height = x < 0 ? width : Integer.parseInt(size.substring(x + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid size: " + size);
+    }
+    if (width <= 0 || height <= 0 || (long) width * height > GridGraph.MAX_VERTICES)
+      throw new IllegalArgumentException("Size must be positive and at most " + GridGraph.MAX_VERTICES + " cells");
+    return new int[] { width, height };
+  }
+
+  /**
+   * Options {@code --nom valeur} et arguments positionnels d'une commande.
+   */
+  private static final class Options {
+    private final Map<String, String> named = new HashMap<>();
+    private final Deque<String> positional = new ArrayDeque<>();
+    private final Set<String> used = new HashSet<>();
+
+    static Options parse(String[] args, int from) {
+      Options options = new Options();
+      for (int i = from; i < args.length; ++i) {
+        if (args[i].startsWith("--")) {
+          if (i + 1 == args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i]);
+          options.named.put(args[i].substring(2), args[++i]);
+        } else {
+          options.positional.add(args[i]);
+        }
+      }
+      return options;
+    }
+
+    String positional(String name) {
+      if (positional.isEmpty())
+        throw new IllegalArgumentException("Missing " + name);
+      return positional.poll();
+    }
+
+    String value(String name, String fallback) {
+      used.add(name);
+      return named.getOrDefault(name, fallback);
+    }
+
+    String required(String name) {
+      String value = value(name, null);
+      if (value == null)
+        throw new IllegalArgumentException("Missing --" + name);
+      return value;
+    }
+
+    long longValue(String name, long fallback) {
+      String value = value(name, null);
+      try {
+        return value == null ? fallback : Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid --" + name + ": " + value);
+      }
+    }
+
+    /**
+     * Appelée par chaque commande une fois toutes ses options lues, avant tout travail.
+     *
+     * @throws IllegalArgumentException si une option ou un argument n'a pas été lu.
+     */
+    void assertAllUsed() {
+      if (!positional.isEmpty())
+        throw new IllegalArgumentException("Unexpected argument: " + positional.peek());
+      for (String name : named.keySet()) {
+        if (!used.contains(name))
+          throw new IllegalArgumentException("Unknown option: --" + name);
+      }
+    }
+  }
+}
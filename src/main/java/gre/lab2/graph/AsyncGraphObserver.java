@@ -0,0 +1,241 @@
+package gre.lab2.graph;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Observateur transmettant les événements reçus à un autre observateur depuis un thread dédié, afin qu'un
+ * observateur lent ne ralentisse pas le thread qui modifie le graphe.</p>
+ *
+ * <p>Les événements sont encodés dans une file circulaire sans verrou, de capacité fixe, sur un tableau primitif :
+ * aucune allocation après la construction. Les événements doivent provenir d'un seul thread producteur à la fois.</p>
+ *
+ * <p>Lorsque la file est pleine, le producteur est bloqué jusqu'à ce que le thread de transmission libère de la
+ * place : aucun événement n'est perdu ni fusionné, et la mémoire reste bornée si l'observateur final ne suit pas le
+ * rythme. Le thread modifiant le graphe n'est donc découplé de l'observateur qu'à hauteur de la capacité.</p>
+ *
+ * <p>{@link #close()} attend que tous les événements aient été transmis puis arrête le thread.</p>
+ *
+ * @see GraphObserver
+ */
+public final class AsyncGraphObserver implements GraphObserver, AutoCloseable {
+  /** Capacité par défaut, en événements */
+  public static final int DEFAULT_CAPACITY = 1 << 16;
+
+  private static final long MAX_PARK_NANOS = 1_000_000;
+
+  private static final int VERTEX_ADDED = 0;
+  private static final int VERTEX_CHANGED = 1;
+  private static final int VERTEX_REMOVED = 2;
+  private static final int EDGE_ADDED = 3;
+  private static final int EDGE_CHANGED = 4;
+  private static final int EDGE_REMOVED = 5;
+
+  private final GraphObserver delegate;
+  private final Thread dispatcher;
+
+  /** Evénements, deux {@code long} chacun */
+  private final long[] events;
+  private final int mask;
+
+  /** Prochain événement à lire, modifié par le consommateur uniquement */
+  private final AtomicLong head = new AtomicLong();
+
+  /** Prochain événement à écrire, modifié par le producteur uniquement */
+  private final AtomicLong tail = new AtomicLong();
+
+  /** Producteur bloqué sur une file pleine, {@code null} sinon */
+  private volatile Thread blocked;
+  private final AtomicLong stalls = new AtomicLong();
+
+  private volatile boolean waiting;
+  private volatile boolean closed;
+  private volatile RuntimeException failure;
+
+  /**
+   * Démarre un thread (daemon) transmettant les événements à {@code delegate}, avec une file de
+   * {@value #DEFAULT_CAPACITY} événements.
+   *
+   * @param delegate Observateur final.
+   * @throws NullPointerException si {@code delegate} est {@code null}.
+   */
+  public AsyncGraphObserver(GraphObserver delegate) {
+    this(delegate, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Démarre un thread (daemon) transmettant les événements à {@code delegate}.
+   *
+   * @param delegate Observateur final.
+   * @param capacity Nombre d'événements en attente au-delà duquel le producteur est bloqué, arrondi à la
+   *                 puissance de 2 supérieure.
+   * @throws NullPointerException si {@code delegate} est {@code null}.
+   * @throws IllegalArgumentException si {@code capacity} n'est pas dans {@code [1, 2^29]}.
+   */
+  public AsyncGraphObserver(GraphObserver delegate, int capacity) {
+    if (delegate == null)
+      throw new NullPointerException("delegate is null");
+    if (capacity < 1 || capacity > 1 << 29)
+      throw new IllegalArgumentException("Capacity: " + capacity + " must be in [1, 2^29]");
+
+    int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.events = new long[2 * size];
+    this.mask = size - 1;
+    this.delegate = delegate;
+    this.dispatcher = new Thread(this::dispatchLoop, "graph-observer-dispatcher");
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+  }
+
+  @Override
+  public void onVertexAdded(int v) {
+    publish(VERTEX_ADDED, v, 0);
+  }
+
+  @Override
+  public void onVertexChanged(int v) {
+    publish(VERTEX_CHANGED, v, 0);
+  }
+
+  @Override
+  public void onVertexRemoved(int v) {
+    publish(VERTEX_REMOVED, v, 0);
+  }
+
+  @Override
+  public void onEdgeAdded(int u, int v) {
+    publish(EDGE_ADDED, u, v);
+  }
+
+  @Override
+  public void onEdgeChanged(int u, int v) {
+    publish(EDGE_CHANGED, u, v);
+  }
+
+  @Override
+  public void onEdgeRemoved(int u, int v) {
+    publish(EDGE_REMOVED, u, v);
+  }
+
+  /**
+   * @return Le nombre approximatif d'événements en attente de transmission.
+   */
+  public long pending() {
+    return tail.get() - head.get();
+  }
+
+  /**
+   * @return Le nombre de fois où le producteur a été bloqué par une file pleine.
+   */
+  public long stalls() {
+    return stalls.get();
+  }
+
+  /**
+   * Attend la transmission de tous les événements déjà reçus puis arrête le thread de transmission.
+   *
+   * @throws RuntimeException la première exception levée par l'observateur final, le cas échéant.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(dispatcher);
+
+    boolean interrupted = false;
+    while (dispatcher.isAlive()) {
+      try {
+        dispatcher.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+
+    if (failure != null)
+      throw failure;
+  }
+
+  // Helpers
+
+  private void publish(int kind, int u, int v) {
+    if (closed)
+      throw new IllegalStateException("Observer is closed");
+
+    long t = tail.get();
+    if (t - head.get() > mask)
+      awaitSpace(t);
+
+    int slot = 2 * ((int) t & mask);
+    events[slot] = (long) kind << 32 | (u & 0xFFFFFFFFL);
+    events[slot + 1] = v;
+    // Publication ordonnée : l'événement est visible avant le nouvel indice
+    tail.lazySet(t + 1);
+
+    if (waiting)
+      LockSupport.unpark(dispatcher);
+  }
+
+  /**
+   * Bloque le producteur tant que la file est pleine.
+   */
+  private void awaitSpace(long t) {
+    stalls.incrementAndGet();
+    blocked = Thread.currentThread();
+    LockSupport.unpark(dispatcher);
+    // Attente bornée, un réveil manqué ne coûte au pire qu'un délai
+    while (t - head.get() > mask)
+      LockSupport.parkNanos(this, MAX_PARK_NANOS);
+    blocked = null;
+  }
+
+  private void dispatchLoop() {
+    while (true) {
+      long h = head.get();
+      long t = tail.get();
+      if (h < t) {
+        for (; h < t; ++h) {
+          int slot = 2 * ((int) h & mask);
+          dispatch(events[slot], events[slot + 1]);
+          // Libère la case au fil de l'eau, un producteur bloqué reprend dès qu'il scrute la file
+          head.lazySet(h + 1);
+        }
+
+        Thread producer = blocked;
+        if (producer != null)
+          LockSupport.unpark(producer);
+        continue;
+      }
+
+      if (closed && h == tail.get())
+        return;
+
+      // Attente bornée, un réveil manqué ne coûte au pire qu'un délai
+      waiting = true;
+      if (head.get() == tail.get() && !closed)
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+      waiting = false;
+    }
+  }
+
+  private void dispatch(long header, long second) {
+    if (failure != null) return;
+
+    int u = (int) header;
+    int v = (int) second;
+    try {
+      switch ((int) (header >>> 32)) {
+        case VERTEX_ADDED -> delegate.onVertexAdded(u);
+        case VERTEX_CHANGED -> delegate.onVertexChanged(u);
+        case VERTEX_REMOVED -> delegate.onVertexRemoved(u);
+        case EDGE_ADDED -> delegate.onEdgeAdded(u, v);
+        case EDGE_CHANGED -> delegate.onEdgeChanged(u, v);
+        case EDGE_REMOVED -> delegate.onEdgeRemoved(u, v);
+        default -> throw new IllegalStateException("Unknown event " + (header >>> 32));
+      }
+    } catch (RuntimeException e) {
+      // Les événements suivants sont ignorés, l'erreur est relancée par close()
+      failure = e;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package gre.lab2.graph;
+
+/**
+ * <p>Implémentation compacte de {@link IntVertexLabelling} stockant une étiquette par octet.</p>
+ *
+ * <p>Seules les étiquettes comprises entre {@link Byte#MIN_VALUE} et {@link Byte#MAX_VALUE} sont acceptées, ce qui
+ * suffit à marquer des états ou de petits compteurs de traitements pour un quart de la mémoire d'un {@code int[]}.</p>
+ */
+public final class ByteVertexLabelling implements IntVertexLabelling {
+  private final byte[] labels;
+
+  /**
+   * Construit un étiquetage dont toutes les étiquettes valent initialement 0.
+   *
+   * @param size Nombre de sommets.
+   * @throws NegativeArraySizeException si {@code size} est négatif.
+   */
+  public ByteVertexLabelling(int size) {
+    this.labels = new byte[size];
+  }
+
+  @Override
+  public int getInt(int v) {
+    assertExists(v);
+    return labels[v];
+  }
+
+  @Override
+  public void setInt(int v, int label) {
+    assertExists(v);
+    if (label < Byte.MIN_VALUE || label > Byte.MAX_VALUE)
+      throw new IllegalArgumentException("Label " + label + " out of bounds. Domain: [" + Byte.MIN_VALUE + ","
+            + Byte.MAX_VALUE + "]");
+
+    labels[v] = (byte) label;
+  }
+
+  /**
+   * @return Le nombre de sommets étiquetés.
+   */
+  public int size() {
+    return labels.length;
+  }
+
+  private void assertExists(int v) {
+    if (v < 0 || v >= labels.length)
+      throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds. Domain: [0," + labels.length + "[");
+  }
+}
@@ -6,10 +6,43 @@ package gre.lab2.graph;
  * <p>S'agissant d'une paire, l'ordre n'est pas important et {@code new Edge(u, v).equals(new Edge(v, u))}
  * renvoie donc {@code true}.</p>
  *
+ * <p>Une arête peut être encodée dans un {@code long} par {@link #toKey()} : les extrémités y sont rangées dans
+ * l'ordre croissant, si bien que les deux orientations d'une arête ont la même clé. Les collections
+ * {@link EdgeSet} et {@link EdgeMap} stockent directement ces clés.</p>
+ *
  * @param u Une extrémité de l'arête.
  * @param v L'autre extrémité de l'arête.
  */
 public record Edge(int u, int v) {
+  /**
+   * Encode l'arête <i>{u, v}</i> sans créer d'{@link Edge}.
+   *
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return La plus petite extrémité dans les 32 bits de poids fort, la plus grande dans ceux de poids faible.
+   */
+  public static long key(int u, int v) {
+    return (long) Math.min(u, v) << 32 | Math.max(u, v) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Décode une clé produite par {@link #key(int, int)} ou {@link #toKey()}.
+   *
+   * @param key Une clé d'arête.
+   * @return L'arête correspondante, extrémités dans l'ordre croissant.
+   */
+  public static Edge fromKey(long key) {
+    return new Edge((int) (key >>> 32), (int) key);
+  }
+
+  /**
+   * @return La clé de l'arête, identique pour <i>{u, v}</i> et <i>{v, u}</i>.
+   * @see #key(int, int)
+   */
+  public long toKey() {
+    return key(u, v);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this) return true;
@@ -22,9 +55,19 @@ public record Edge(int u, int v) {
 
   @Override
   public int hashCode() {
-    // Non uniforme, mais inutile de s'en soucier ici
-    return u + v;
+    // u + v ferait collisionner toutes les arêtes d'une même anti-diagonale de la grille
+    return (int) mix(toKey());
   }
-}
-
 
+  /**
+   * Finaliseur de MurmurHash3 : chaque bit de la clé influence tous les bits du résultat.
+   *
+   * @param key Une clé d'arête.
+   * @return La clé mélangée.
+   */
+  static long mix(long key) {
+    key = (key ^ key >>> 33) * 0xFF51AFD7ED558CCDL;
+    key = (key ^ key >>> 33) * 0xC4CEB9FE1A85EC53L;
+    return key ^ key >>> 33;
+  }
+}
@@ -0,0 +1,179 @@
+package gre.lab2.graph;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Association d'arêtes non orientées à des valeurs, les arêtes étant stockées sous forme de clés {@code long}
+ * (voir {@link Edge#toKey()}) dans une table à adressage ouvert.</p>
+ *
+ * <p>Contrairement à un {@code HashMap<Edge, V>}, ni arête ni entrée n'est allouée. L'ajout, la recherche et la
+ * suppression sont en temps constant amorti, l'ordre d'itération n'est pas spécifié. Les valeurs {@code null}
+ * sont acceptées mais ne se distinguent pas d'une arête absente pour {@link #get(int, int)}.</p>
+ *
+ * <p>Les accès concurrents ne sont pas supportés.</p>
+ *
+ * @param <V> Type des valeurs.
+ */
+public final class EdgeMap<V> extends EdgeTable {
+  /** Valeurs, indexées par slot, celle de la clé libre en dernier */
+  private Object[] values;
+
+  /**
+   * Construit une association vide.
+   */
+  public EdgeMap() {
+    this(0);
+  }
+
+  /**
+   * Construit une association vide pouvant contenir {@code expected} arêtes sans être agrandie.
+   *
+   * @param expected Nombre d'arêtes attendu.
+   * @throws IllegalArgumentException si {@code expected} est négatif.
+   */
+  public EdgeMap(int expected) {
+    super(expected);
+    values = new Object[capacity() + 1];
+  }
+
+  /**
+   * Associe une valeur à l'arête <i>{u, v}</i>.
+   *
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @param value Valeur à associer.
+   * @return La valeur précédemment associée, ou {@code null} si l'arête était absente.
+   */
+  public V put(int u, int v, V value) {
+    int slot = insert(Edge.key(u, v));
+    if (slot < 0) {
+      values[~slot] = value;
+      return null;
+    }
+
+    V previous = valueAt(slot);
+    values[slot] = value;
+    return previous;
+  }
+
+  /**
+   * @param e Une arête.
+   * @param value Valeur à associer.
+   * @return La valeur précédemment associée, ou {@code null} si l'arête était absente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   * @see #put(int, int, Object)
+   */
+  public V put(Edge e, V value) {
+    return put(e.u(), e.v(), value);
+  }
+
+  /**
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return La valeur associée à l'arête <i>{u, v}</i>, ou {@code null} si elle est absente.
+   */
+  public V get(int u, int v) {
+    int slot = find(Edge.key(u, v));
+    return slot < 0 ? null : valueAt(slot);
+  }
+
+  /**
+   * @param e Une arête.
+   * @return La valeur associée à l'arête, ou {@code null} si elle est absente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   */
+  public V get(Edge e) {
+    return get(e.u(), e.v());
+  }
+
+  /**
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return {@code true} si l'arête <i>{u, v}</i> est présente.
+   */
+  public boolean containsKey(int u, int v) {
+    return find(Edge.key(u, v)) >= 0;
+  }
+
+  /**
+   * @param e Une arête.
+   * @return {@code true} si l'arête est présente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   */
+  public boolean containsKey(Edge e) {
+    return containsKey(e.u(), e.v());
+  }
+
+  /**
+   * Retire l'arête <i>{u, v}</i> et sa valeur.
+   *
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return La valeur qui était associée, ou {@code null} si l'arête était absente.
+   */
+  public V remove(int u, int v) {
+    int slot = find(Edge.key(u, v));
+    if (slot < 0)
+      return null;
+
+    V previous = valueAt(slot);
+    erase(slot);
+    return previous;
+  }
+
+  /**
+   * @param e Une arête.
+   * @return La valeur qui était associée, ou {@code null} si l'arête était absente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   * @see #remove(int, int)
+   */
+  public V remove(Edge e) {
+    return remove(e.u(), e.v());
+  }
+
+  /**
+   * Applique une action à chaque association. L'action ne doit pas modifier l'association.
+   *
+   * @param action Action à appliquer, recevant chaque arête avec ses extrémités dans l'ordre croissant.
+   * @throws NullPointerException si {@code action} est {@code null}.
+   */
+  public void forEach(BiConsumer<? super Edge, ? super V> action) {
+    for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1))
+      action.accept(Edge.fromKey(keyAt(slot)), valueAt(slot));
+  }
+
+  // internal helpers
+
+  @SuppressWarnings("unchecked")
+  private V valueAt(int slot) {
+    return (V) values[slot];
+  }
+
+  @Override
+  Object allocateValues(int capacity) {
+    Object[] oldValues = values;
+    values = new Object[capacity + 1];
+    return oldValues;
+  }
+
+  @Override
+  void moveValue(Object oldValues, int from, int to) {
+    values[to] = ((Object[]) oldValues)[from];
+  }
+
+  @Override
+  void shiftValue(int from, int to) {
+    values[to] = values[from];
+  }
+
+  @Override
+  void clearValue(int slot) {
+    values[slot] = null;
+  }
+
+  @Override
+  void clearValues() {
+    Arrays.fill(values, null);
+  }
+}
@@ -0,0 +1,153 @@
+package gre.lab2.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>Ensemble d'arêtes non orientées, stockées sous forme de clés {@code long} (voir {@link Edge#toKey()}) dans
+ * une table à adressage ouvert.</p>
+ *
+ * <p>Contrairement à un {@code HashSet<Edge>}, aucune arête n'est allouée et une arête occupe de 16 à 32 octets
+ * selon le remplissage de la table. L'ajout, la recherche et la suppression sont en temps constant amorti, l'ordre
+ * d'itération n'est pas spécifié.</p>
+ *
+ * <p>Les accès concurrents ne sont pas supportés.</p>
+ */
+public final class EdgeSet extends EdgeTable {
+  /**
+   * Construit un ensemble vide.
+   */
+  public EdgeSet() {
+    this(0);
+  }
+
+  /**
+   * Construit un ensemble vide pouvant contenir {@code expected} arêtes sans être agrandi.
+   *
+   * @param expected Nombre d'arêtes attendu.
+   * @throws IllegalArgumentException si {@code expected} est négatif.
+   */
+  public EdgeSet(int expected) {
+    super(expected);
+  }
+
+  /**
+   * Construit l'ensemble des arêtes d'un graphe.
+   *
+   * @param graph Un graphe.
+   * @return Un nouvel ensemble contenant {@code graph.edges()}.
+   * @throws NullPointerException si {@code graph} est {@code null}.
+   */
+  public static EdgeSet of(Graph graph) {
+    List<Edge> edges = graph.edges();
+    EdgeSet set = new EdgeSet(edges.size());
+    for (Edge e : edges)
+      set.add(e);
+    return set;
+  }
+
+  /**
+   * Ajoute l'arête <i>{u, v}</i>.
+   *
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return {@code true} si l'arête était absente.
+   */
+  public boolean add(int u, int v) {
+    return insert(Edge.key(u, v)) < 0;
+  }
+
+  /**
+   * @param e Une arête.
+   * @return {@code true} si l'arête était absente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   * @see #add(int, int)
+   */
+  public boolean add(Edge e) {
+    return add(e.u(), e.v());
+  }
+
+  /**
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return {@code true} si l'arête <i>{u, v}</i> est présente.
+   */
+  public boolean contains(int u, int v) {
+    return find(Edge.key(u, v)) >= 0;
+  }
+
+  /**
+   * @param e Une arête.
+   * @return {@code true} si l'arête est présente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   */
+  public boolean contains(Edge e) {
+    return contains(e.u(), e.v());
+  }
+
+  /**
+   * Retire l'arête <i>{u, v}</i>.
+   *
+   * @param u Une extrémité de l'arête.
+   * @param v L'autre extrémité de l'arête.
+   * @return {@code true} si l'arête était présente.
+   */
+  public boolean remove(int u, int v) {
+    int slot = find(Edge.key(u, v));
+    if (slot < 0)
+      return false;
+
+    erase(slot);
+    return true;
+  }
+
+  /**
+   * @param e Une arête.
+   * @return {@code true} si l'arête était présente.
+   * @throws NullPointerException si {@code e} est {@code null}.
+   * @see #remove(int, int)
+   */
+  public boolean remove(Edge e) {
+    return remove(e.u(), e.v());
+  }
+
+  /**
+   * Applique une action à la clé de chaque arête, sans allocation. L'action ne doit pas modifier l'ensemble.
+   *
+   * @param action Action à appliquer, recevant des clés décodables par {@link Edge#fromKey(long)}.
+   * @throws NullPointerException si {@code action} est {@code null}.
+   */
+  public void forEachKey(LongConsumer action) {
+    for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1))
+      action.accept(keyAt(slot));
+  }
+
+  /**
+   * @return Une nouvelle liste des arêtes présentes, extrémités dans l'ordre croissant.
+   */
+  public List<Edge> edges() {
+    List<Edge> edges = new ArrayList<>(size());
+    forEachKey(key -> edges.add(Edge.fromKey(key)));
+    return edges;
+  }
+
+  // sans valeurs
+
+  @Override
+  Object allocateValues(int capacity) {
+    return null;
+  }
+
+  @Override
+  void moveValue(Object oldValues, int from, int to) {}
+
+  @Override
+  void shiftValue(int from, int to) {}
+
+  @Override
+  void clearValue(int slot) {}
+
+  @Override
+  void clearValues() {}
+}
@@ -0,0 +1,224 @@
+package gre.lab2.graph;
+
+import java.util.Arrays;
+
+/**
+ * <p>Table de hachage à adressage ouvert et sondage linéaire sur les clés d'arêtes de {@link Edge#key(int, int)},
+ * partagée par {@link EdgeSet} et {@link EdgeMap}.</p>
+ *
+ * <p>Une case libre contient la clé 0, celle de la boucle <i>{0, 0}</i>. Cette clé est donc rangée à part, dans
+ * le slot d'index {@code keys.length}, et les sous-classes dimensionnent leurs valeurs en conséquence. La table
+ * est agrandie au-delà d'un taux de remplissage de 1/2 et les suppressions décalent les clés suivantes plutôt
+ * que de laisser des marqueurs.</p>
+ */
+abstract class EdgeTable {
+  /** Clé d'une case libre */
+  private static final long FREE = 0;
+
+  private static final int MIN_CAPACITY = 16;
+
+  /** Clés, de taille puissance de 2 */
+  private long[] keys;
+
+  /** {@code keys.length - 1} */
+  private int mask;
+
+  /** {@code true} si la clé {@link #FREE} est présente */
+  private boolean hasFreeKey;
+
+  /** Nombre de clés présentes */
+  private int size;
+
+  /**
+   * @param expected Nombre d'arêtes attendu.
+   * @throws IllegalArgumentException si {@code expected} est négatif.
+   */
+  EdgeTable(int expected) {
+    if (expected < 0)
+      throw new IllegalArgumentException("Expected size: " + expected + " must be non negative");
+
+    keys = new long[capacityFor(expected)];
+    mask = keys.length - 1;
+  }
+
+  /**
+   * @return Le nombre d'arêtes présentes.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return {@code true} si aucune arête n'est présente.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Retire toutes les arêtes, sans réduire la capacité.
+   */
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    hasFreeKey = false;
+    size = 0;
+    clearValues();
+  }
+
+  // hooks des sous-classes
+
+  /**
+   * Alloue les valeurs d'une table de {@code capacity} cases, plus celle de la clé libre.
+   *
+   * @return Les anciennes valeurs, transmises à {@link #moveValue(Object, int, int)}.
+   */
+  abstract Object allocateValues(int capacity);
+
+  /**
+   * Déplace une valeur des anciennes valeurs vers les nouvelles lors d'un agrandissement.
+   */
+  abstract void moveValue(Object oldValues, int from, int to);
+
+  /**
+   * Déplace une valeur au sein de la table lors d'une suppression.
+   */
+  abstract void shiftValue(int from, int to);
+
+  /**
+   * Libère la valeur d'un slot devenu vide.
+   */
+  abstract void clearValue(int slot);
+
+  abstract void clearValues();
+
+  // accès
+
+  /**
+   * @return Le nombre de cases, hors celle de la clé libre.
+   */
+  final int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * @return Le slot de la clé, ou {@code ~slot} si elle est absente.
+   */
+  final int find(long key) {
+    if (key == FREE)
+      return hasFreeKey ? keys.length : ~keys.length;
+
+    for (int slot = (int) Edge.mix(key) & mask; ; slot = slot + 1 & mask) {
+      long k = keys[slot];
+      if (k == key)
+        return slot;
+      if (k == FREE)
+        return ~slot;
+    }
+  }
+
+  /**
+   * Insère la clé si elle est absente.
+   *
+   * @return Le slot de la clé si elle était présente, ou {@code ~slot} du slot où elle vient d'être insérée.
+   */
+  final int insert(long key) {
+    if (size >= keys.length >>> 1)
+      grow();
+
+    int slot = find(key);
+    if (slot < 0) {
+      if (~slot == keys.length)
+        hasFreeKey = true;
+      else
+        keys[~slot] = key;
+      ++size;
+    }
+    return slot;
+  }
+
+  /**
+   * Retire la clé d'un slot occupé, en décalant les clés suivantes de sa séquence de sondage.
+   */
+  final void erase(int slot) {
+    --size;
+    if (slot == keys.length) {
+      hasFreeKey = false;
+      clearValue(slot);
+      return;
+    }
+
+    int last = slot;
+    for (int pos = last + 1 & mask; ; pos = pos + 1 & mask) {
+      long k = keys[pos];
+      if (k == FREE) {
+        keys[last] = FREE;
+        clearValue(last);
+        return;
+      }
+
+      // La clé peut remplir le trou si son slot idéal n'est pas situé entre le trou et elle
+      int ideal = (int) Edge.mix(k) & mask;
+      if (last <= pos ? last >= ideal || ideal > pos : last >= ideal && ideal > pos) {
+        keys[last] = k;
+        shiftValue(pos, last);
+        last = pos;
+      }
+    }
+  }
+
+  /**
+   * @return La clé rangée dans un slot occupé.
+   */
+  final long keyAt(int slot) {
+    return slot == keys.length ? FREE : keys[slot];
+  }
+
+  /**
+   * Parcours sans allocation des slots occupés, dans l'ordre de la table puis celui de la clé libre :
+   * {@code for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1))}. La table ne doit pas être
+   * modifiée pendant le parcours.
+   *
+   * @param from Premier slot candidat.
+   * @return Le premier slot occupé à partir de {@code from}, ou -1 s'il n'y en a plus.
+   */
+  final int nextSlot(int from) {
+    for (int slot = from; slot < keys.length; ++slot) {
+      if (keys[slot] != FREE)
+        return slot;
+    }
+    return from <= keys.length && hasFreeKey ? keys.length : -1;
+  }
+
+  // internal helpers
+
+  private static int capacityFor(int expected) {
+    long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1L, 2L * expected) * 2 - 1));
+    if (capacity > 1 << 30)
+      throw new IllegalArgumentException("Expected size: " + expected + " is too large");
+    return (int) capacity;
+  }
+
+  private void grow() {
+    if (keys.length == 1 << 30)
+      throw new IllegalStateException("Edge table is full");
+
+    long[] oldKeys = keys;
+    keys = new long[oldKeys.length << 1];
+    mask = keys.length - 1;
+    Object oldValues = allocateValues(keys.length);
+
+    if (hasFreeKey)
+      moveValue(oldValues, oldKeys.length, keys.length);
+    for (int from = 0; from < oldKeys.length; ++from) {
+      long k = oldKeys[from];
+      if (k == FREE)
+        continue;
+
+      int to = (int) Edge.mix(k) & mask;
+      while (keys[to] != FREE)
+        to = to + 1 & mask;
+      keys[to] = k;
+      moveValue(oldValues, from, to);
+    }
+  }
+}
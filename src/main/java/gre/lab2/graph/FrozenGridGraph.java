@@ -0,0 +1,254 @@
+package gre.lab2.graph;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Instantané immuable d'un {@link GridGraph2D}, sûr pour des lectures concurrentes sans aucun verrou.</p>
+ *
+ * <p>Chaque sommet n'occupe que 2 bits : le passage vers la droite (bit {@code 2 * v}) et le passage vers le bas
+ * (bit {@code 2 * v + 1}). Les passages vers le haut et la gauche se déduisent de ceux des voisins.</p>
+ *
+ * <p>Les bits peuvent provenir d'une copie en mémoire ({@link #copyOf(GridGraph2D)}), rangée dans un
+ * {@code long[]}, ou d'un tampon externe, par exemple un fichier projeté en mémoire
+ * ({@link #wrap(LongBuffer, int, int)}). Seule la seconde variante passe par un {@link LongBuffer}, la première
+ * garde un accès direct au tableau.</p>
+ *
+ * <p>Toutes les opérations sont en temps constant, sauf la récupération des arêtes en temps linéaire. Les
+ * méthodes de modification lèvent {@link UnsupportedOperationException}.</p>
+ */
+public abstract sealed class FrozenGridGraph implements GridGraph2D {
+  /** Largeur */
+  private final int width;
+
+  /** Hauteur */
+  private final int height;
+
+  private FrozenGridGraph(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Passages rangés dans un tableau en mémoire.
+   */
+  private static final class InHeap extends FrozenGridGraph {
+    /** Passages droite/bas, 32 sommets par mot */
+    private final long[] bits;
+
+    private InHeap(int width, int height, long[] bits) {
+      super(width, height);
+      this.bits = bits;
+    }
+
+    @Override
+    public long word(int i) {
+      return bits[i];
+    }
+  }
+
+  /**
+   * Passages lus dans un tampon externe, sans copie.
+   */
+  private static final class Buffered extends FrozenGridGraph {
+    /** Passages droite/bas, 32 sommets par mot */
+    private final LongBuffer bits;
+
+    private Buffered(int width, int height, LongBuffer bits) {
+      super(width, height);
+      this.bits = bits;
+    }
+
+    @Override
+    public long word(int i) {
+      return bits.get(i);
+    }
+  }
+
+  /**
+   * Copie la structure actuelle d'une grille.
+   *
+   * @param graph Une grille.
+   * @return Un instantané immuable de {@code graph}.
+   * @throws NullPointerException si {@code graph} est {@code null}.
+   */
+  public static FrozenGridGraph copyOf(GridGraph2D graph) {
+    if (graph instanceof FrozenGridGraph frozen)
+      return frozen;
+
+    int width = graph.width();
+    int height = graph.height();
+    long[] bits = new long[wordCount(width, height)];
+
+    for (int v = 0; v < width * height; ++v) {
+      if (v % width < width - 1 && graph.areAdjacent(v, v + 1))
+        bits[v >>> 5] |= 1L << (2 * v);
+
+      if (v < width * (height - 1) && graph.areAdjacent(v, v + width))
+        bits[v >>> 5] |= 2L << (2 * v);
+    }
+
+    return new InHeap(width, height, bits);
+  }
+
+  /**
+   * Construit une grille lisant ses passages directement dans un tampon, sans copie. Le mot {@code i} du tampon
+   * (relativement à sa position) contient les passages des sommets <i>32i</i> à <i>32i + 31</i>, le passage
+   * vers la droite de <i>v</i> sur le bit {@code 2 * (v % 32)} et celui vers le bas sur le bit suivant.
+   *
+   * <p>Le tampon ne doit plus être modifié ensuite.</p>
+   *
+   * @param bits   Passages des sommets, au moins {@link #wordCount(int, int)} mots restants.
+   * @param width  Largeur de la grille.
+   * @param height Hauteur de la grille.
+   * @return Une grille immuable adossée à {@code bits}.
+   * @throws IllegalArgumentException si les dimensions sont invalides ou si le tampon est trop petit.
+   */
+  public static FrozenGridGraph wrap(LongBuffer bits, int width, int height) {
+    if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Invalid grid dimensions: " + width + "x" + height);
+
+    int words = wordCount(width, height);
+    if (bits.remaining() < words)
+      throw new IllegalArgumentException("Buffer too small: " + bits.remaining() + " words, " + words + " expected");
+
+    return new Buffered(width, height, bits.slice().limit(words));
+  }
+
+  /**
+   * @param width  Largeur de la grille.
+   * @param height Hauteur de la grille.
+   * @return Le nombre de mots de 64 bits nécessaires pour stocker les passages d'une telle grille.
+   */
+  public static int wordCount(int width, int height) {
+    return (int) ((2L * width * height + 63) >>> 6);
+  }
+
+  /**
+   * @param i Indice d'un mot, dans <i>[0, {@link #wordCount(int, int)}[</i>.
+   * @return Les passages des sommets <i>32i</i> à <i>32i + 31</i>.
+   */
+  public abstract long word(int i);
+
+  /**
+   * @param v Un sommet, supposé existant.
+   * @return {@code true} s'il existe un passage entre <i>v</i> et son voisin de droite.
+   */
+  public boolean hasRight(int v) {
+    return (word(v >>> 5) >>> (2 * v) & 1) != 0;
+  }
+
+  /**
+   * @param v Un sommet, supposé existant.
+   * @return {@code true} s'il existe un passage entre <i>v</i> et son voisin du bas.
+   */
+  public boolean hasDown(int v) {
+    return (word(v >>> 5) >>> (2 * v) & 2) != 0;
+  }
+
+  /**
+   * Variante sans allocation de {@link #neighbors(int)}, écrivant les voisins dans un tampon fourni.
+   *
+   * @param v Un sommet.
+   * @param out Tampon d'au moins 4 éléments.
+   * @return Le nombre de voisins écrits au début de {@code out}.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'existe pas ou si {@code out} est trop petit.
+   */
+  public int neighbors(int v, int[] out) {
+    assertExists(v);
+
+    // Même ordre que GridGraph : Haut-Gauche-Droite-Bas
+    int count = 0;
+    if (v >= width && hasDown(v - width))
+      out[count++] = v - width;
+    if (v % width > 0 && hasRight(v - 1))
+      out[count++] = v - 1;
+    if (hasRight(v))
+      out[count++] = v + 1;
+    if (hasDown(v))
+      out[count++] = v + width;
+    return count;
+  }
+
+  @Override
+  public List<Integer> neighbors(int v) {
+    int[] buffer = new int[4];
+    int count = neighbors(v, buffer);
+
+    List<Integer> neighbors = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i)
+      neighbors.add(buffer[i]);
+    return neighbors;
+  }
+
+  @Override
+  public List<Edge> edges() {
+    List<Edge> edges = new ArrayList<>();
+
+    for (int v = 0; v < nbVertices(); ++v) {
+      // Haut et bas
+      if (v >= width && hasDown(v - width))
+        edges.add(new Edge(v - width, v));
+
+      // Gauche et droite
+      if (v % width > 0 && hasRight(v - 1))
+        edges.add(new Edge(v - 1, v));
+    }
+
+    return edges;
+  }
+
+  @Override
+  public boolean areAdjacent(int u, int v) {
+    assertExists(u);
+    assertExists(v);
+
+    int min = Math.min(u, v);
+    int d = Math.abs(u - v);
+    if (d == width)
+      return hasDown(min);
+    return d == 1 && min / width == Math.max(u, v) / width && hasRight(min);
+  }
+
+  /**
+   * @throws UnsupportedOperationException toujours, le graphe étant immuable.
+   */
+  @Override
+  public void addEdge(int u, int v) {
+    throw new UnsupportedOperationException("Frozen graph can't be modified");
+  }
+
+  /**
+   * @throws UnsupportedOperationException toujours, le graphe étant immuable.
+   */
+  @Override
+  public void removeEdge(int u, int v) {
+    throw new UnsupportedOperationException("Frozen graph can't be modified");
+  }
+
+  @Override
+  public int nbVertices() {
+    return width * height;
+  }
+
+  @Override
+  public boolean vertexExists(int v) {
+    return v >= 0 && v < nbVertices();
+  }
+
+  @Override
+  public int width() {
+    return width;
+  }
+
+  @Override
+  public int height() {
+    return height;
+  }
+
+  private void assertExists(int v) {
+    if (!vertexExists(v))
+      throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds. Domain: [0," + nbVertices() + "[");
+  }
+}
@@ -0,0 +1,206 @@
+package gre.lab2.graph;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * <p>Enregistreur compact des événements d'un graphe observé, permettant de les rejouer plus tard.</p>
+ *
+ * <p>Chaque événement occupe un {@code long} : le type sur les 2 bits de poids fort puis deux champs de 31 bits,
+ * soit les extrémités d'une arête, soit un sommet et sa nouvelle étiquette. Les étiquettes sont lues au moment de
+ * l'événement grâce à une fonction fournie à la construction.</p>
+ *
+ * <p>L'enregistrement doit être fait depuis un seul thread, et la lecture une fois l'enregistrement terminé.</p>
+ *
+ * @see GraphObserver
+ */
+public final class GraphTrace implements GraphObserver {
+  /**
+   * Type d'un événement enregistré.
+   */
+  public enum Kind {
+    /**
+     * Ajout de l'arête <i>{u, v}</i>.
+     */
+    EDGE_ADDED,
+
+    /**
+     * Suppression de l'arête <i>{u, v}</i>.
+     */
+    EDGE_REMOVED,
+
+    /**
+     * Changement de l'étiquette du sommet <i>u</i>, la nouvelle valeur étant <i>v</i>.
+     */
+    VERTEX_CHANGED
+  }
+
+  private static final Kind[] KINDS = Kind.values();
+  private static final int MAGIC = 0x47524554; // "GRET"
+  private static final int VERSION = 1;
+  /** Magic, version et nombre d'événements */
+  private static final int HEADER_BYTES = 3 * Integer.BYTES;
+  private static final long FIELD_MASK = Integer.MAX_VALUE;
+
+  private final IntUnaryOperator labels;
+  private long[] events = new long[1024];
+  private int size;
+
+  /**
+   * Construit un enregistreur ignorant les étiquettes (enregistrées à 0).
+   */
+  public GraphTrace() {
+    this(v -> 0);
+  }
+
+  /**
+   * Construit un enregistreur lisant la nouvelle étiquette d'un sommet à chaque changement.
+   *
+   * @param labels Fonction donnant l'étiquette courante d'un sommet. Seuls les 31 bits de poids faible sont
+   *               conservés, les valeurs négatives de faible magnitude (comme -1) sont donc préservées.
+   * @throws NullPointerException si {@code labels} est {@code null}.
+   */
+  public GraphTrace(IntUnaryOperator labels) {
+    if (labels == null)
+      throw new NullPointerException("labels is null");
+    this.labels = labels;
+  }
+
+  @Override
+  public void onEdgeAdded(int u, int v) {
+    append(Kind.EDGE_ADDED, u, v);
+  }
+
+  @Override
+  public void onEdgeRemoved(int u, int v) {
+    append(Kind.EDGE_REMOVED, u, v);
+  }
+
+  @Override
+  public void onVertexChanged(int v) {
+    append(Kind.VERTEX_CHANGED, v, labels.applyAsInt(v));
+  }
+
+  /**
+   * @return Le nombre d'événements enregistrés.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param i Indice d'un événement.
+   * @return Le type de l'événement.
+   * @throws IndexOutOfBoundsException si {@code i} n'est pas un indice valide.
+   */
+  public Kind kind(int i) {
+    return KINDS[(int) (event(i) >>> 62)];
+  }
+
+  /**
+   * @param i Indice d'un événement.
+   * @return Une extrémité de l'arête, ou le sommet modifié.
+   * @throws IndexOutOfBoundsException si {@code i} n'est pas un indice valide.
+   */
+  public int u(int i) {
+    return (int) (event(i) >>> 31 & FIELD_MASK);
+  }
+
+  /**
+   * @param i Indice d'un événement.
+   * @return L'autre extrémité de l'arête, ou la nouvelle étiquette du sommet.
+   * @throws IndexOutOfBoundsException si {@code i} n'est pas un indice valide.
+   */
+  public int v(int i) {
+    // Extension du signe sur 31 bits
+    return (int) (event(i) << 33 >> 33);
+  }
+
+  /**
+   * Transmet les événements d'indices {@code [from, to[} à un observateur.
+   *
+   * @param observer Un observateur.
+   * @param from Premier événement (inclus).
+   * @param to Dernier événement (exclu).
+   * @throws IndexOutOfBoundsException si l'intervalle n'est pas valide.
+   */
+  public void replay(GraphObserver observer, int from, int to) {
+    if (from < 0 || to > size || from > to)
+      throw new IndexOutOfBoundsException("Range [" + from + "," + to + "[ out of bounds. Domain: [0," + size + "]");
+
+    for (int i = from; i < to; ++i) {
+      switch (kind(i)) {
+        case EDGE_ADDED -> observer.onEdgeAdded(u(i), v(i));
+        case EDGE_REMOVED -> observer.onEdgeRemoved(u(i), v(i));
+        case VERTEX_CHANGED -> observer.onVertexChanged(u(i));
+      }
+    }
+  }
+
+  /**
+   * Ecrit la trace dans un fichier binaire.
+   *
+   * @param path Chemin du fichier, remplacé s'il existe.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  public void writeTo(Path path) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(size);
+      for (int i = 0; i < size; ++i)
+        out.writeLong(events[i]);
+    }
+  }
+
+  /**
+   * Lit une trace écrite par {@link #writeTo(Path)}. Les étiquettes étant déjà enregistrées, la trace lue ne
+   * doit pas être utilisée comme observateur.
+   *
+   * @param path Chemin du fichier.
+   * @return La trace lue.
+   * @throws IOException en cas d'erreur de lecture ou si le fichier n'est pas une trace valide.
+   */
+  public static GraphTrace readFrom(Path path) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC)
+        throw new IOException("Not a graph trace: " + path);
+
+      int version = in.readInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported trace version " + version);
+
+      int size = in.readInt();
+      if (size < 0)
+        throw new IOException("Corrupted trace: negative size");
+      // Un en-tête corrompu ne doit pas provoquer une allocation démesurée avant la première lecture
+      if (size > (Files.size(path) - HEADER_BYTES) / Long.BYTES)
+        throw new IOException("Corrupted trace: " + size + " events announced, file too short");
+
+      GraphTrace trace = new GraphTrace();
+      trace.events = new long[Math.max(size, 1)];
+      for (int i = 0; i < size; ++i)
+        trace.events[i] = in.readLong();
+      trace.size = size;
+      return trace;
+    }
+  }
+
+  // Helpers
+
+  private void append(Kind kind, int a, int b) {
+    if (size == events.length)
+      events = Arrays.copyOf(events, events.length * 2);
+
+    events[size++] = (long) kind.ordinal() << 62 | (a & FIELD_MASK) << 31 | b & FIELD_MASK;
+  }
+
+  private long event(int i) {
+    if (i < 0 || i >= size)
+      throw new IndexOutOfBoundsException("Event " + i + " out of bounds. Domain: [0," + size + "[");
+    return events[i];
+  }
+}
@@ -9,6 +9,9 @@ import java.util.List;
  * de la taille de la grile.
  */
 public final class GridGraph implements GridGraph2D {
+  /** Nombre maximal de sommets, les 4 slots de chacun étant indexés dans un seul tableau */
+  public static final int MAX_VERTICES = Integer.MAX_VALUE / 4;
+
   /**
    * Direction dans laquelle peut se trouver un voisin.
    */
@@ -89,11 +92,15 @@ public final class GridGraph implements GridGraph2D {
    * Construit une grille rectangulaire.
    * @param width Largeur de la grille.
    * @param height Hauteur de la grille.
-   * @throws IllegalArgumentException si {@code width} ou {@code length} sont négatifs ou nuls.
+   * @throws IllegalArgumentException si {@code width} ou {@code length} sont négatifs ou nuls, ou si la grille
+   * compte plus de {@link #MAX_VERTICES} sommets.
    */
   public GridGraph(int width, int height) {
     if (width < 0 || height < 0)
       throw new IllegalArgumentException("Width: " + width + " and height: " + height + " must be non negative");
+    if ((long) width * height > MAX_VERTICES)
+      throw new IllegalArgumentException("Width: " + width + " and height: " + height + " exceed "
+            + MAX_VERTICES + " vertices");
 
     this.width = width;
     this.height = height;
@@ -112,6 +119,31 @@ public final class GridGraph implements GridGraph2D {
     return neighbors;
   }
 
+  /**
+   * Variante sans allocation de {@link #neighbors(int)}, écrivant les voisins dans un tampon fourni.
+   *
+   * @param v Un sommet.
+   * @param out Tampon d'au moins 4 éléments.
+   * @return Le nombre de voisins écrits au début de {@code out}, dans le même ordre que {@link #neighbors(int)}.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'existe pas ou si {@code out} est trop petit.
+   */
+  public int neighbors(int v, int[] out) {
+    assertExists(v);
+
+    // Slots Haut-Gauche-Droite-Bas lus directement, sans passer par Direction.values() qui copie son tableau
+    int slot = 4 * v;
+    int count = 0;
+    if (edges[slot])
+      out[count++] = v - width;
+    if (edges[slot + 1])
+      out[count++] = v - 1;
+    if (edges[slot + 2])
+      out[count++] = v + 1;
+    if (edges[slot + 3])
+      out[count++] = v + width;
+    return count;
+  }
+
   @Override
   public List<Edge> edges() {
     List<Edge> edges = new ArrayList<>();
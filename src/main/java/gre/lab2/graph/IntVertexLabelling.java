@@ -0,0 +1,71 @@
+package gre.lab2.graph;
+
+/**
+ * <p>Spécialisation de {@link VertexLabelling} pour des étiquettes entières, permettant de lire et d'écrire
+ * les étiquettes sans passer par {@link Integer} (aucune allocation ni déballage).</p>
+ *
+ * <p>Les méthodes génériques {@link #getLabel(int)} et {@link #setLabel(int, Integer)} délèguent par défaut
+ * aux variantes primitives.</p>
+ *
+ * @see VertexLabelling
+ */
+public interface IntVertexLabelling extends VertexLabelling<Integer> {
+  /**
+   * Récupère l'étiquette associée au sommet <i>v</i>.
+   *
+   * @param v Un sommet.
+   * @return L'étiquette associée à <i>v</i>.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'est pas présent dans le graphe.
+   */
+  int getInt(int v);
+
+  /**
+   * Assigne une étiquette au sommet <i>v</i>.
+   *
+   * @param v Un sommet.
+   * @param label Etiquette à associer.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'est pas présent dans le graphe.
+   * @throws IllegalArgumentException si {@code label} ne convient pas aux critères de l'implémentation.
+   */
+  void setInt(int v, int label);
+
+  @Override
+  default Integer getLabel(int v) {
+    return getInt(v);
+  }
+
+  @Override
+  default void setLabel(int v, Integer label) {
+    setInt(v, label);
+  }
+
+  /**
+   * <p>Adapte un {@link VertexLabelling} quelconque en {@link IntVertexLabelling}.</p>
+   *
+   * <p>Si {@code labelling} est déjà un {@link IntVertexLabelling}, il est retourné tel quel, sinon les appels
+   * sont délégués (avec emballage) aux méthodes génériques.</p>
+   *
+   * @param labelling Un {@link VertexLabelling}.
+   * @return Un {@link IntVertexLabelling} partageant les étiquettes de {@code labelling}.
+   * @throws NullPointerException si {@code labelling} est {@code null}.
+   */
+  static IntVertexLabelling of(VertexLabelling<Integer> labelling) {
+    if (labelling == null)
+      throw new NullPointerException("labelling is null");
+
+    if (labelling instanceof IntVertexLabelling ints)
+      return ints;
+
+    return new IntVertexLabelling() {
+      @Override
+      public int getInt(int v) {
+        return labelling.getLabel(v);
+      }
+
+      @Override
+      public void setInt(int v, int label) {
+        labelling.setLabel(v, label);
+      }
+    };
+  }
+}
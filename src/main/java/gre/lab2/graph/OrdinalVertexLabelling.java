@@ -0,0 +1,33 @@
+package gre.lab2.graph;
+
+/**
+ * <p>Spécialisation de {@link VertexLabelling} pour des étiquettes énumérées, permettant de manipuler directement
+ * leur ordinal ({@link Enum#ordinal()}).</p>
+ *
+ * <p>Utile aux implémentations stockant les étiquettes sous forme compacte (octet, quelques bits) plutôt que sous
+ * forme de références.</p>
+ *
+ * @param <E> Type énuméré de l'étiquette.
+ *
+ * @see VertexLabelling
+ */
+public interface OrdinalVertexLabelling<E extends Enum<E>> extends VertexLabelling<E> {
+  /**
+   * Récupère l'ordinal de l'étiquette associée au sommet <i>v</i>.
+   *
+   * @param v Un sommet.
+   * @return L'ordinal de l'étiquette associée à <i>v</i>.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'est pas présent dans le graphe.
+   */
+  int getOrdinal(int v);
+
+  /**
+   * Assigne au sommet <i>v</i> l'étiquette d'ordinal donné.
+   *
+   * @param v Un sommet.
+   * @param ordinal Ordinal de l'étiquette à associer.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'est pas présent dans le graphe.
+   * @throws IllegalArgumentException si {@code ordinal} ne correspond à aucune valeur de {@link E}.
+   */
+  void setOrdinal(int v, int ordinal);
+}
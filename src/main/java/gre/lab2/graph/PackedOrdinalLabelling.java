@@ -0,0 +1,107 @@
+package gre.lab2.graph;
+
+import java.util.Arrays;
+
+/**
+ * <p>Implémentation compacte de {@link OrdinalVertexLabelling} stockant l'ordinal de chaque étiquette sur le nombre
+ * minimal de bits (1, 2, 4 ou 8) dans un tableau de {@code long}.</p>
+ *
+ * <p>Pour une énumération de 3 ou 4 valeurs, un sommet n'occupe que 2 bits, contre 4 à 8 octets pour un tableau
+ * de références. Les accès sont en temps constant.</p>
+ *
+ * <p>Les écritures concurrentes ne sont pas supportées : un seul thread doit modifier les étiquettes.</p>
+ *
+ * @param <E> Type énuméré de l'étiquette.
+ */
+public final class PackedOrdinalLabelling<E extends Enum<E>> implements OrdinalVertexLabelling<E> {
+  /** Valeurs de l'énumération, indexées par ordinal */
+  private final E[] constants;
+
+  /** Nombre de sommets étiquetés */
+  private final int size;
+
+  /** log2 du nombre de bits par sommet */
+  private final int shift;
+
+  /** Masque d'un slot de {@code 1 << shift} bits */
+  private final long mask;
+
+  /** Slots des étiquettes, {@code 64 >> shift} par {@code long} */
+  private final long[] words;
+
+  /**
+   * Construit un étiquetage dont toutes les étiquettes valent initialement {@code initial}.
+   *
+   * @param type Classe de l'énumération.
+   * @param size Nombre de sommets.
+   * @param initial Etiquette initiale de tous les sommets.
+   * @throws NullPointerException si {@code type} ou {@code initial} sont {@code null}.
+   * @throws IllegalArgumentException si {@code size} est négatif ou si l'énumération a plus de 256 valeurs.
+   */
+  public PackedOrdinalLabelling(Class<E> type, int size, E initial) {
+    if (size < 0)
+      throw new IllegalArgumentException("Size: " + size + " must be non negative");
+
+    this.constants = type.getEnumConstants();
+    if (constants.length > 256)
+      throw new IllegalArgumentException("Enum " + type.getName() + " has too many constants to be packed");
+
+    int bits = 1;
+    while ((1 << bits) < constants.length)
+      bits <<= 1;
+
+    this.size = size;
+    this.shift = Integer.numberOfTrailingZeros(bits);
+    this.mask = (1L << bits) - 1;
+    this.words = new long[(int) (((long) size << shift) + 63 >>> 6)];
+
+    int ordinal = initial.ordinal();
+    if (ordinal != 0) {
+      // Réplique l'ordinal dans tous les slots d'un mot
+      long word = 0;
+      for (int i = 0; i < 64; i += bits)
+        word |= (long) ordinal << i;
+      Arrays.fill(words, word);
+    }
+  }
+
+  @Override
+  public int getOrdinal(int v) {
+    assertExists(v);
+    long bit = (long) v << shift;
+    return (int) (words[(int) (bit >>> 6)] >>> bit & mask);
+  }
+
+  @Override
+  public void setOrdinal(int v, int ordinal) {
+    assertExists(v);
+    if (ordinal < 0 || ordinal >= constants.length)
+      throw new IllegalArgumentException("Ordinal " + ordinal + " out of bounds. Domain: [0," + constants.length + "[");
+
+    long bit = (long) v << shift;
+    int index = (int) (bit >>> 6);
+    words[index] = words[index] & ~(mask << bit) | (long) ordinal << bit;
+  }
+
+  @Override
+  public E getLabel(int v) {
+    return constants[getOrdinal(v)];
+  }
+
+  @Override
+  public void setLabel(int v, E label) {
+    setOrdinal(v, label.ordinal());
+  }
+
+  /**
+   * @return Le nombre de sommets étiquetés.
+   */
+  public int size() {
+    return size;
+  }
+
+  private void assertExists(int v) {
+    if (v < 0 || v >= size)
+      throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds. Domain: [0," + size + "[");
+  }
+}
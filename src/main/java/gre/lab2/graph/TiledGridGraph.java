@@ -0,0 +1,283 @@
+package gre.lab2.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Implémentation mutable de {@link GridGraph2D} rangeant les passages par tuiles de
+ * {@value #TILE} x {@value #TILE} cases, les sommets restant numérotés ligne par ligne.</p>
+ *
+ * <p>Avec un rangement ligne par ligne, deux voisins verticaux sont séparés d'une ligne entière : sur une grille
+ * large, chaque pas vers le haut ou le bas d'un parcours tombe sur une autre ligne de cache. Ici, une tuile tient
+ * en deux mots de 64 bits, passages vers la droite puis vers le bas de ses 64 cases, et quatre tuiles voisines
+ * partagent une ligne de cache : 7 voisins verticaux sur 8 sont dans le même mot, et un parcours reste dans une
+ * poignée de lignes de cache au lieu d'en parcourir une par rangée.</p>
+ *
+ * <p>Chaque case n'occupe que 2 bits, contre 4 octets pour {@link GridGraph}. Toutes les opérations sont en temps
+ * constant, sauf la récupération des arêtes en temps linéaire.</p>
+ */
+public final class TiledGridGraph implements GridGraph2D {
+  /** Côté d'une tuile */
+  public static final int TILE = 8;
+
+  private static final int SHIFT = 3;
+  private static final int MASK = TILE - 1;
+
+  /** Largeur */
+  private final int width;
+
+  /** Hauteur */
+  private final int height;
+
+  /** Nombre de tuiles par rangée de tuiles */
+  private final int tilesX;
+
+  /**
+   * Passages de la tuile {@code t} : vers la droite dans le mot {@code 2 * t}, vers le bas dans le mot
+   * {@code 2 * t + 1}, la case (x, y) de la tuile sur le bit {@code 8 * y + x}.
+   */
+  private final long[] bits;
+
+  /**
+   * Construit une grille carrée sans arête.
+   *
+   * @param side Côté de la grille.
+   */
+  public TiledGridGraph(int side) {
+    this(side, side);
+  }
+
+  /**
+   * Construit une grille rectangulaire sans arête.
+   *
+   * @param width  Largeur de la grille.
+   * @param height Hauteur de la grille.
+   * @throws IllegalArgumentException si {@code width} ou {@code height} sont négatifs, ou si la grille compte
+   *                                  plus de {@link Integer#MAX_VALUE} sommets.
+   */
+  public TiledGridGraph(int width, int height) {
+    if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Width: " + width + " and height: " + height + " must be non negative");
+
+    this.width = width;
+    this.height = height;
+    this.tilesX = (width + MASK) >>> SHIFT;
+    this.bits = new long[2 * tilesX * ((height + MASK) >>> SHIFT)];
+  }
+
+  /**
+   * Copie la structure actuelle d'une grille.
+   *
+   * @param graph Une grille.
+   * @return Une copie de {@code graph} rangée par tuiles.
+   * @throws NullPointerException si {@code graph} est {@code null}.
+   */
+  public static TiledGridGraph copyOf(GridGraph2D graph) {
+    int width = graph.width();
+    int height = graph.height();
+    TiledGridGraph copy = new TiledGridGraph(width, height);
+
+    for (int v = 0; v < width * height; ++v) {
+      if (v % width < width - 1 && graph.areAdjacent(v, v + 1))
+        copy.set(v, 0, true);
+
+      if (v < width * (height - 1) && graph.areAdjacent(v, v + width))
+        copy.set(v, 1, true);
+    }
+    return copy;
+  }
+
+  /**
+   * Lie chaque sommet du graphe donné à tous ses voisins dans la grille.
+   *
+   * @param graph Un graphe.
+   * @throws NullPointerException si {@code graph} est null.
+   */
+  public static void bindAll(TiledGridGraph graph) {
+    for (int v = 0; v < graph.nbVertices(); ++v) {
+      if (v % graph.width < graph.width - 1)
+        graph.set(v, 0, true);
+
+      if (v < graph.width * (graph.height - 1))
+        graph.set(v, 1, true);
+    }
+  }
+
+  /**
+   * @param v Un sommet, supposé existant.
+   * @return {@code true} s'il existe un passage entre <i>v</i> et son voisin de droite.
+   */
+  public boolean hasRight(int v) {
+    return get(v, 0);
+  }
+
+  /**
+   * @param v Un sommet, supposé existant.
+   * @return {@code true} s'il existe un passage entre <i>v</i> et son voisin du bas.
+   */
+  public boolean hasDown(int v) {
+    return get(v, 1);
+  }
+
+  /**
+   * Variante sans allocation de {@link #neighbors(int)}, écrivant les voisins dans un tampon fourni.
+   *
+   * @param v Un sommet.
+   * @param out Tampon d'au moins 4 éléments.
+   * @return Le nombre de voisins écrits au début de {@code out}.
+   * @throws IndexOutOfBoundsException si <i>v</i> n'existe pas ou si {@code out} est trop petit.
+   */
+  public int neighbors(int v, int[] out) {
+    assertExists(v);
+    int x = v % width;
+    int y = v / width;
+
+    // Même ordre que GridGraph : Haut-Gauche-Droite-Bas
+    int count = 0;
+    if (y > 0 && get(x, y - 1, 1))
+      out[count++] = v - width;
+    if (x > 0 && get(x - 1, y, 0))
+      out[count++] = v - 1;
+    if (get(x, y, 0))
+      out[count++] = v + 1;
+    if (get(x, y, 1))
+      out[count++] = v + width;
+    return count;
+  }
+
+  @Override
+  public List<Integer> neighbors(int v) {
+    int[] buffer = new int[4];
+    int count = neighbors(v, buffer);
+
+    List<Integer> neighbors = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i)
+      neighbors.add(buffer[i]);
+    return neighbors;
+  }
+
+  @Override
+  public List<Edge> edges() {
+    List<Edge> edges = new ArrayList<>();
+
+    for (int v = 0; v < nbVertices(); ++v) {
+      // Haut et bas
+      if (v >= width && hasDown(v - width))
+        edges.add(new Edge(v - width, v));
+
+      // Gauche et droite
+      if (v % width > 0 && hasRight(v - 1))
+        edges.add(new Edge(v - 1, v));
+    }
+
+    return edges;
+  }
+
+  @Override
+  public boolean areAdjacent(int u, int v) {
+    assertExists(u);
+    assertExists(v);
+
+    int min = Math.min(u, v);
+    int d = Math.abs(u - v);
+    if (d == width)
+      return hasDown(min);
+    return d == 1 && min / width == Math.max(u, v) / width && hasRight(min);
+  }
+
+  @Override
+  public void addEdge(int u, int v) {
+    int direction = direction(u, v);
+    if (get(Math.min(u, v), direction))
+      throw new IllegalArgumentException("Edge {" + u + "," + v + "} already exists");
+
+    set(Math.min(u, v), direction, true);
+  }
+
+  @Override
+  public void removeEdge(int u, int v) {
+    assertExists(u);
+    assertExists(v);
+
+    if (!areAdjacent(u, v))
+      throw new IllegalArgumentException("Edge {" + u + "," + v + "} does not exist");
+
+    set(Math.min(u, v), direction(u, v), false);
+  }
+
+  @Override
+  public int nbVertices() {
+    return width * height;
+  }
+
+  @Override
+  public boolean vertexExists(int v) {
+    return v >= 0 && v < nbVertices();
+  }
+
+  @Override
+  public int width() {
+    return width;
+  }
+
+  @Override
+  public int height() {
+    return height;
+  }
+
+  // internal helpers
+
+  private void assertExists(int v) {
+    if (!vertexExists(v))
+      throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds. Domain: [0," + nbVertices() + "[");
+  }
+
+  /**
+   * @return 0 si <i>v</i> est à droite de <i>u</i> ou inversement, 1 si l'un est sous l'autre.
+   * @throws IllegalArgumentException si les sommets ne sont pas voisins dans la grille.
+   */
+  private int direction(int u, int v) {
+    assertExists(u);
+    assertExists(v);
+
+    int d = Math.abs(u - v);
+    if (d == width)
+      return 1;
+    if (d == 1 && u / width == v / width)
+      return 0;
+    throw new IllegalArgumentException("Can't create edge {" + u + "," + v + "}: " +
+          "Only adjacent vertices in the grid can be bound");
+  }
+
+  /**
+   * @param direction 0 pour le passage vers la droite, 1 pour celui vers le bas.
+   * @return Index du mot contenant le passage de la case (x, y) dans la direction donnée.
+   */
+  private int word(int x, int y, int direction) {
+    return 2 * ((y >>> SHIFT) * tilesX + (x >>> SHIFT)) + direction;
+  }
+
+  /**
+   * @return Position du bit de la case (x, y) dans son mot.
+   */
+  private static int bit(int x, int y) {
+    return (y & MASK) << SHIFT | x & MASK;
+  }
+
+  private boolean get(int x, int y, int direction) {
+    return (bits[word(x, y, direction)] >>> bit(x, y) & 1) != 0;
+  }
+
+  private boolean get(int v, int direction) {
+    return get(v % width, v / width, direction);
+  }
+
+  private void set(int v, int direction, boolean value) {
+    int x = v % width;
+    int y = v / width;
+    if (value)
+      bits[word(x, y, direction)] |= 1L << bit(x, y);
+    else
+      bits[word(x, y, direction)] &= ~(1L << bit(x, y));
+  }
+}
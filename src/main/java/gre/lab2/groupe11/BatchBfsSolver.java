@@ -0,0 +1,145 @@
+package gre.lab2.groupe11;
+
+import gre.lab2.graph.FrozenGridGraph;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Answers many path queries at once on a {@link FrozenGridGraph}, spreading
+ * them over the common fork-join pool.
+ * <p>
+ * Each worker thread keeps its own scratch buffers (queue, predecessors and
+ * visit stamps), reused from one query to the next without being cleared, so
+ * that a query only allocates its resulting path.
+ */
+public final class BatchBfsSolver {
+
+  private final ThreadLocal<Scratch> scratches = new ThreadLocal<>();
+
+  /**
+   * Finds a shortest path for each {@code (sources[i], destinations[i])} pair.
+   *
+   * @param graph        A frozen maze
+   * @param sources      Start vertices
+   * @param destinations End vertices, same length as {@code sources}
+   * @return For each query, the vertices of the path from source to
+   *         destination (both included), or an empty array if the destination
+   *         is unreachable
+   * @throws NullPointerException     if any argument is {@code null}
+   * @throws IllegalArgumentException if the arrays lengths differ or if a
+   *                                  vertex is not within the {@code graph}
+   */
+  public int[][] solveAll(FrozenGridGraph graph, int[] sources, int[] destinations) {
+    Objects.requireNonNull(graph, "graph is null");
+    if (null == sources || null == destinations) {
+      throw new NullPointerException("sources or destinations is null");
+    }
+
+    if (sources.length != destinations.length) {
+      throw new IllegalArgumentException("sources and destinations must have the same length");
+    }
+
+    for (int i = 0; i < sources.length; ++i) {
+      if (!graph.vertexExists(sources[i]) || !graph.vertexExists(destinations[i])) {
+        throw new IllegalArgumentException("query " + i + " has a source or destination out of graph");
+      }
+    }
+
+    int[][] paths = new int[sources.length][];
+    IntStream.range(0, sources.length)
+        .parallel()
+        .forEach(i -> paths[i] = scratch(graph.nbVertices()).solve(graph, sources[i], destinations[i]));
+    return paths;
+  }
+
+  /**
+   * Finds a shortest path on the calling thread.
+   *
+   * @param graph       A frozen maze
+   * @param source      Start vertex
+   * @param destination End vertex
+   * @return The vertices of the path from source to destination (both
+   *         included), or an empty array if the destination is unreachable
+   * @throws NullPointerException     if {@code graph} is {@code null}
+   * @throws IllegalArgumentException if {@code source} or {@code destination} are
+   *                                  not within the {@code graph}
+   */
+  public int[] solve(FrozenGridGraph graph, int source, int destination) {
+    return solveAll(graph, new int[] { source }, new int[] { destination })[0];
+  }
+
+  private Scratch scratch(int size) {
+    Scratch scratch = scratches.get();
+    if (null == scratch || scratch.queue.length != size) {
+      scratch = new Scratch(size);
+      scratches.set(scratch);
+    }
+    return scratch;
+  }
+
+  /**
+   * Per-thread buffers. A vertex is visited during the current query iff its
+   * stamp equals the current epoch, which avoids clearing between queries.
+   */
+  private static final class Scratch {
+    private final int[] queue;
+    private final int[] parents;
+    private final int[] stamps;
+    private final int[] neighbors = new int[4];
+    private int epoch;
+
+    private Scratch(int size) {
+      queue = new int[size];
+      parents = new int[size];
+      stamps = new int[size];
+    }
+
+    private int[] solve(FrozenGridGraph graph, int source, int destination) {
+      if (++epoch == 0) {
+        // overflow, forget all stamps
+        Arrays.fill(stamps, 0);
+        epoch = 1;
+      }
+
+      int head = 0;
+      int tail = 0;
+      stamps[source] = epoch;
+      parents[source] = source;
+      queue[tail++] = source;
+
+      while (head < tail) {
+        int current = queue[head++];
+        if (current == destination) {
+          return buildPath(source, destination);
+        }
+
+        int count = graph.neighbors(current, neighbors);
+        for (int i = 0; i < count; ++i) {
+          int v = neighbors[i];
+          if (stamps[v] != epoch) {
+            stamps[v] = epoch;
+            parents[v] = current;
+            queue[tail++] = v;
+          }
+        }
+      }
+
+      return new int[0];
+    }
+
+    private int[] buildPath(int source, int destination) {
+      int length = 1;
+      for (int v = destination; v != source; v = parents[v]) {
+        ++length;
+      }
+
+      int[] path = new int[length];
+      for (int i = length - 1, v = destination; i >= 0; --i, v = parents[v]) {
+        path[i] = v;
+      }
+      return path;
+    }
+  }
+}
@@ -1,17 +1,30 @@
 package gre.lab2.groupe11;
 
 import gre.lab2.graph.Graph;
+import gre.lab2.graph.IntVertexLabelling;
 import gre.lab2.graph.VertexLabelling;
-import gre.lab2.gui.MazeSolver;
+import gre.lab2.gui.BoundedMazeSolver;
+import gre.lab2.gui.MazeMetrics;
+import gre.lab2.gui.SolveBudget;
+import gre.lab2.gui.SolveResult;
+import jdk.jfr.FlightRecorder;
 
 import java.util.*;
 
 /**
  * Implementation of the BFS algorithm to solve any type of maze represented
- * by a {@link Graph} of any kind, as long as all the vertices are related
- * (otherwise might lead to unexpected results).
+ * by a {@link Graph} of any kind.
+ * <p>
+ * The search can be bounded by a {@link SolveBudget} and is interrupted
+ * cooperatively: the budget deadline and the interruption status of the
+ * thread are only checked every {@value #CHECK_INTERVAL} expansions, so that
+ * the hot loop does no system call. The {@link MazeMetrics} are published at
+ * the same interval.
  */
-public final class BfsSolver implements MazeSolver {
+public final class BfsSolver implements BoundedMazeSolver {
+
+  /** Number of expansions between two checks of the deadline and interruption */
+  private static final int CHECK_INTERVAL = 1024;
 
   /**
    * {@inheritDoc}
@@ -21,57 +34,159 @@ public final class BfsSolver implements MazeSolver {
    * @param destination End vertex
    * @param treatments  Indication of the vertices treated by the algorithm and
    *                    the number of times they have been treated
-   * @return An unmodifiable list representing the path from {@code source} to
-   *         {@code destination}
-   * @throws NullPointerException     if {@code graph} or {@code treatments} are
-   *                                  {@code null}.
+   * @param budget      Limits of the search
+   * @return The result of the search, holding an unmodifiable path from
+   *         {@code source} to {@code destination} if found
+   * @throws NullPointerException     if {@code graph}, {@code treatments} or
+   *                                  {@code budget} are {@code null}.
    * @throws IllegalArgumentException if {@code source} or {@code destination} are
    *                                  not within the {@code graph}.
    */
   @Override
-  public List<Integer> solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments) {
-    if (null == graph || null == treatments) {
-      throw new NullPointerException("graph or treatments is null");
+  public SolveResult solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments,
+                           SolveBudget budget) {
+    if (null == graph || null == treatments || null == budget) {
+      throw new NullPointerException("graph, treatments or budget is null");
     }
 
     if (!graph.vertexExists(source) || !graph.vertexExists(destination)) {
       throw new IllegalArgumentException("source or destination is not a vertex of graph");
     }
 
-    Queue<Integer> queue = new LinkedList<>();
+    // the event class is only loaded once the flight recorder runs, loading it
+    // initialises the recorder
+    SolveEvent event = FlightRecorder.isInitialized()
+        ? new SolveEvent("BFS", graph.nbVertices(), source, destination) : null;
+    if (event != null)
+      event.begin();
+    long start = System.nanoTime();
+
+    Progress progress = new Progress();
+    SolveResult result = search(graph, source, destination, IntVertexLabelling.of(treatments), budget, progress);
+
+    progress.publish(result.expanded());
+    MazeMetrics metrics = MazeMetrics.global();
+    metrics.addPhase(MazeMetrics.Phase.SOLVE, System.nanoTime() - start);
+    metrics.solveDone();
+
+    if (event != null && event.shouldCommit()) {
+      event.status = result.status().name();
+      event.expanded = result.expanded();
+      event.edgesScanned = progress.scanned;
+      event.pathLength = result.path().size();
+      event.commit();
+    }
+    return result;
+  }
+
+  /**
+   * Actual search.
+   *
+   * @param labels   primitive view of the labels, avoids boxing when the
+   *                 monitor supports it
+   * @param progress counters of the search, published every
+   *                 {@value #CHECK_INTERVAL} expansions
+   */
+  private static SolveResult search(Graph graph, int source, int destination, IntVertexLabelling labels,
+                                    SolveBudget budget, Progress progress) {
+
+    // each vertex is enqueued at most once, the queue is thus a plain array
+    int[] queue = new int[graph.nbVertices()];
+    int head = 0;
+    int tail = 0;
+
     // initialise a visited vertex map so that we can keep track of the path
-    List<Integer> visited = new ArrayList<>(Collections.nCopies(graph.nbVertices(), -1));
+    int[] visited = new int[graph.nbVertices()];
+    Arrays.fill(visited, -1);
 
     // mark source as visited
-    treatments.setLabel(source, 1);
-    visited.set(source, 0);
+    labels.setInt(source, 1);
+    visited[source] = source;
+    queue[tail++] = source;
 
     // BFS traversal starting from source until we discover the destination node
-    int current = source;
-    while (current != destination) {
-      for (int v : graph.neighbors(current)) {
+    long expanded = 0;
+    long nextCheck = CHECK_INTERVAL;
+    while (head < tail) {
+      int current = queue[head];
+      if (current == destination) {
+        return new SolveResult(SolveResult.Status.FOUND, buildPath(visited, source, destination), new int[0], expanded);
+      }
+
+      if (expanded == budget.maxExpansions()) {
+        return stopped(SolveResult.Status.EXHAUSTED, queue, head, tail, expanded);
+      }
+
+      // amortised checks, no time syscall in the hot loop
+      if (expanded == nextCheck) {
+        nextCheck += CHECK_INTERVAL;
+        progress.publish(expanded);
+        if (Thread.currentThread().isInterrupted()) {
+          return stopped(SolveResult.Status.CANCELLED, queue, head, tail, expanded);
+        }
+        if (budget.isExpired()) {
+          return stopped(SolveResult.Status.EXHAUSTED, queue, head, tail, expanded);
+        }
+      }
+
+      ++head;
+      ++expanded;
+      List<Integer> neighbors = graph.neighbors(current);
+      progress.scanned += neighbors.size();
+      for (int v : neighbors) {
         // only go through unvisited vertices
-        if (-1 == visited.get(v)) {
+        if (-1 == visited[v]) {
           // mark as visited and add to queue
-          treatments.setLabel(v, 1);
+          labels.setInt(v, 1);
           // we register the "current" vertex as the vertex that led us to this one
-          visited.set(v, current);
-          queue.add(v);
+          visited[v] = current;
+          queue[tail++] = v;
         }
       }
+      progress.queuePeak = Math.max(progress.queuePeak, tail - head);
+    }
+
+    // the whole component of the source was explored
+    return new SolveResult(SolveResult.Status.UNREACHABLE, Collections.emptyList(), new int[0], expanded);
+  }
+
+  /**
+   * Counters of a search, published to the {@link MazeMetrics} by batches.
+   */
+  private static final class Progress {
+    long scanned;
+    int queuePeak;
+    private long publishedExpanded;
+    private long publishedScanned;
 
-      current = queue.remove();
+    void publish(long expanded) {
+      MazeMetrics.global().addSearch(expanded - publishedExpanded, scanned - publishedScanned, queuePeak);
+      publishedExpanded = expanded;
+      publishedScanned = scanned;
     }
+  }
 
-    // Build the path from destination to source
+  /**
+   * Builds the path from source to destination.
+   */
+  private static List<Integer> buildPath(int[] visited, int source, int destination) {
     LinkedList<Integer> path = new LinkedList<>();
+    int current = destination;
     path.addFirst(current);
     while (current != source) {
       // we use the visited vertices map we have to go towards the source
-      current = visited.get(current);
+      current = visited[current];
       path.addFirst(current);
     }
 
     return Collections.unmodifiableList(path);
   }
+
+  /**
+   * Result of a search stopped before its end, the frontier being the
+   * remaining content of the queue.
+   */
+  private static SolveResult stopped(SolveResult.Status status, int[] queue, int head, int tail, long expanded) {
+    return new SolveResult(status, Collections.emptyList(), Arrays.copyOfRange(queue, head, tail), expanded);
+  }
 }
@@ -0,0 +1,234 @@
+package gre.lab2.groupe11;
+
+import gre.lab2.graph.FrozenGridGraph;
+import gre.lab2.graph.Graph;
+import gre.lab2.graph.GraphObserver;
+import gre.lab2.graph.ObservableGraph;
+import gre.lab2.graph.VertexLabelling;
+import gre.lab2.gui.MazeSolver;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator of a {@link MazeSolver} remembering the paths of the last queries
+ * in an LRU cache bounded by the total number of vertices stored.
+ * <p>
+ * Paths are stored as {@code int[]} and keyed by the identity and version
+ * stamp of the maze. The stamp of an {@link ObservableGraph} is bumped by its
+ * {@link GraphObserver#onEdgeAdded(int, int)} and
+ * {@link GraphObserver#onEdgeRemoved(int, int)} notifications, so that a path
+ * computed before an edit is never returned after it; stale entries are simply
+ * left to age out of the cache. A {@link FrozenGridGraph} never changes and is
+ * always cached, while queries on any other graph, whose edits cannot be
+ * observed, go straight to the delegate.
+ * <p>
+ * The graph being undirected, a query and its reverse share the same entry.
+ * A hit treats no vertex: {@code treatments} is only updated on misses.
+ * <p>
+ * The cache is safe for concurrent queries, the delegate being called outside
+ * of any lock.
+ */
+public final class CachingMazeSolver implements MazeSolver {
+
+  /**
+   * Version stamp of an observed graph.
+   */
+  private static final class Stamp implements GraphObserver {
+    private final AtomicLong version = new AtomicLong();
+
+    @Override
+    public void onEdgeAdded(int u, int v) {
+      version.incrementAndGet();
+    }
+
+    @Override
+    public void onEdgeRemoved(int u, int v) {
+      version.incrementAndGet();
+    }
+  }
+
+  /**
+   * A query, with {@code u <= v}, on a given version of a maze.
+   */
+  private record Key(Stamp stamp, long version, int u, int v) {}
+
+  private final MazeSolver delegate;
+  private final long capacity;
+
+  /** Stamps of the graphs queried so far, graphs compare by identity */
+  private final Map<Graph, Stamp> stamps = new WeakHashMap<>();
+  private final LinkedHashMap<Key, int[]> paths = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates a cache in front of a solver.
+   *
+   * @param delegate The solver computing the paths
+   * @param capacity Maximum total number of path vertices kept
+   * @throws NullPointerException     if {@code delegate} is {@code null}
+   * @throws IllegalArgumentException if {@code capacity} is negative
+   */
+  public CachingMazeSolver(MazeSolver delegate, long capacity) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate is null");
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity is negative");
+    this.capacity = capacity;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The returned path is unmodifiable. An observable graph is subscribed to on
+   * its first query, and stays subscribed as long as it is reachable.
+   */
+  @Override
+  public List<Integer> solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments) {
+    Stamp stamp = stamp(graph);
+    if (stamp == null) {
+      synchronized (this) {
+        ++misses;
+      }
+      return delegate.solve(graph, source, destination, treatments);
+    }
+
+    long version = stamp.version.get();
+    boolean reversed = source > destination;
+    Key key = reversed
+        ? new Key(stamp, version, destination, source)
+        : new Key(stamp, version, source, destination);
+
+    int[] path;
+    synchronized (this) {
+      path = paths.get(key);
+      if (path != null)
+        ++hits;
+      else
+        ++misses;
+    }
+
+    if (path == null) {
+      List<Integer> solved = delegate.solve(graph, key.u(), key.v(), treatments);
+      path = new int[solved.size()];
+      for (int i = 0; i < path.length; ++i)
+        path[i] = solved.get(i);
+      store(key, path);
+    }
+
+    return new PathView(path, reversed);
+  }
+
+  /**
+   * @return Number of queries answered from the cache
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * @return Number of queries forwarded to the delegate
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * @return Number of paths dropped to respect the capacity
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  /**
+   * @return Share of the queries answered from the cache, 0 before any query
+   */
+  public synchronized double hitRate() {
+    long queries = hits + misses;
+    return queries == 0 ? 0 : (double) hits / queries;
+  }
+
+  /**
+   * @return Number of paths currently kept
+   */
+  public synchronized int size() {
+    return paths.size();
+  }
+
+  /**
+   * @return Total number of path vertices currently kept
+   */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  /**
+   * Drops every path, statistics are kept.
+   */
+  public synchronized void clear() {
+    paths.clear();
+    weight = 0;
+  }
+
+  /**
+   * @return The stamp of the graph, or {@code null} if its edits cannot be
+   *         observed
+   */
+  private Stamp stamp(Graph graph) {
+    if (!(graph instanceof FrozenGridGraph) && !(graph instanceof ObservableGraph))
+      return null;
+
+    synchronized (stamps) {
+      Stamp stamp = stamps.get(graph);
+      if (stamp == null) {
+        stamp = new Stamp();
+        stamps.put(graph, stamp);
+        // subscribed before any query reads the version, so no edit is missed
+        if (graph instanceof ObservableGraph observable)
+          observable.subscribe(stamp);
+      }
+      return stamp;
+    }
+  }
+
+  private synchronized void store(Key key, int[] path) {
+    if (path.length > capacity || paths.containsKey(key))
+      return;
+
+    paths.put(key, path);
+    weight += path.length;
+
+    Iterator<int[]> it = paths.values().iterator();
+    while (weight > capacity && it.hasNext()) {
+      weight -= it.next().length;
+      it.remove();
+      ++evictions;
+    }
+  }
+
+  /**
+   * Unmodifiable view of a cached path, possibly read backwards.
+   */
+  private static final class PathView extends AbstractList<Integer> implements RandomAccess {
+    private final int[] path;
+    private final boolean reversed;
+
+    PathView(int[] path, boolean reversed) {
+      this.path = path;
+      this.reversed = reversed;
+    }
+
+    @Override
+    public Integer get(int index) {
+      Objects.checkIndex(index, path.length);
+      return path[reversed ? path.length - 1 - index : index];
+    }
+
+    @Override
+    public int size() {
+      return path.length;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package gre.lab2.groupe11;
+
+import gre.lab2.graph.Graph;
+import gre.lab2.graph.GraphObserver;
+import gre.lab2.graph.IntVertexLabelling;
+import gre.lab2.graph.ObservableGraph;
+import gre.lab2.graph.VertexLabelling;
+import gre.lab2.gui.MazeSolver;
+
+import java.util.*;
+
+/**
+ * Dynamic variant of the BFS solver which keeps a BFS tree rooted at the last
+ * queried source and repairs it locally when edges of the observed graph are
+ * added or removed (in the spirit of Ramalingam and Reps' dynamic shortest
+ * paths algorithm, specialised to unit weights).
+ * <p>
+ * Adding an edge only propagates the distance decrease from its far end,
+ * removing a tree edge only recomputes the subtree that hung below it. Queries
+ * from the same source between edits cost only the length of the path.
+ * <p>
+ * The solver must be subscribed to the graph it was built for, see
+ * {@link #attach(Graph)}. Queries on any other graph fall back to a
+ * {@link BfsSolver}.
+ */
+public final class DynamicBfsSolver implements MazeSolver, GraphObserver {
+
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final Graph graph;
+  private final int[] distances;
+  private final int[] parents;
+  private int root = -1;
+
+  // scratch buffers reused by the repairs
+  private final int[] queue;
+  private final int[] affected;
+  private final long[] seeds;
+  private final int[] marks;
+  private int epoch;
+
+  /**
+   * Creates a solver bound to the given graph. The solver must then be
+   * subscribed to the graph so that it is notified of its modifications.
+   *
+   * @param graph The graph the BFS tree is maintained for
+   * @throws NullPointerException if {@code graph} is {@code null}
+   */
+  public DynamicBfsSolver(Graph graph) {
+    this.graph = Objects.requireNonNull(graph, "graph is null");
+
+    int n = graph.nbVertices();
+    distances = new int[n];
+    parents = new int[n];
+    queue = new int[n];
+    affected = new int[n];
+    seeds = new long[n];
+    marks = new int[n];
+  }
+
+  /**
+   * Creates a solver bound to the given graph and subscribes it to the
+   * graph's modifications.
+   *
+   * @param graph An observable graph
+   * @param <G>   Type of the graph
+   * @return The subscribed solver
+   * @throws NullPointerException if {@code graph} is {@code null}
+   */
+  public static <G extends Graph & ObservableGraph> DynamicBfsSolver attach(G graph) {
+    DynamicBfsSolver solver = new DynamicBfsSolver(graph);
+    graph.subscribe(solver);
+    return solver;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The tree is rebuilt (and all reachable vertices are marked in
+   * {@code treatments}) only when {@code source} differs from the previous
+   * query, otherwise the path is read from the maintained tree.
+   *
+   * @return An unmodifiable list representing the path from {@code source} to
+   *         {@code destination}, empty if {@code destination} is unreachable
+   * @throws NullPointerException     if {@code graph} or {@code treatments} are
+   *                                  {@code null}.
+   * @throws IllegalArgumentException if {@code source} or {@code destination} are
+   *                                  not within the {@code graph}.
+   */
+  @Override
+  public synchronized List<Integer> solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments) {
+    if (null == graph || null == treatments) {
+      throw new NullPointerException("graph or treatments is null");
+    }
+
+    if (graph != this.graph) {
+      return new BfsSolver().solve(graph, source, destination, treatments);
+    }
+
+    if (!graph.vertexExists(source) || !graph.vertexExists(destination)) {
+      throw new IllegalArgumentException("source or destination is not a vertex of graph");
+    }
+
+    if (source != root) {
+      rebuild(source, IntVertexLabelling.of(treatments));
+    }
+
+    if (UNREACHABLE == distances[destination]) {
+      return Collections.emptyList();
+    }
+
+    // walk up the tree from the destination
+    Integer[] path = new Integer[distances[destination] + 1];
+    for (int i = path.length - 1, current = destination; i >= 0; --i, current = parents[current]) {
+      path[i] = current;
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(path));
+  }
+
+  /**
+   * @param v A vertex
+   * @return The distance from the current root to {@code v}, or
+   *         {@link Integer#MAX_VALUE} if unreachable or if no query was made yet
+   */
+  public synchronized int distance(int v) {
+    return root < 0 ? UNREACHABLE : distances[v];
+  }
+
+  @Override
+  public synchronized void onEdgeAdded(int u, int v) {
+    if (root < 0) {
+      return;
+    }
+
+    // u is the closest end to the root
+    if (distances[u] > distances[v]) {
+      int tmp = u;
+      u = v;
+      v = tmp;
+    }
+
+    if (UNREACHABLE == distances[u] || distances[u] + 1 >= distances[v]) {
+      // the new edge does not shorten anything
+      return;
+    }
+
+    distances[v] = distances[u] + 1;
+    parents[v] = u;
+
+    // propagate the decrease, each vertex is improved at most once since there
+    // is a single origin and all weights are equal
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = v;
+    while (head < tail) {
+      int current = queue[head++];
+      for (int w : graph.neighbors(current)) {
+        if (distances[current] + 1 < distances[w]) {
+          distances[w] = distances[current] + 1;
+          parents[w] = current;
+          queue[tail++] = w;
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized void onEdgeRemoved(int u, int v) {
+    if (root < 0) {
+      return;
+    }
+
+    // only the removal of a tree edge changes distances
+    int child;
+    if (parents[v] == u && v != root) {
+      child = v;
+    } else if (parents[u] == v && u != root) {
+      child = u;
+    } else {
+      return;
+    }
+
+    int mark = ++epoch;
+
+    // collect the subtree below the removed edge
+    int count = 0;
+    affected[count++] = child;
+    marks[child] = mark;
+    for (int i = 0; i < count; ++i) {
+      int current = affected[i];
+      for (int w : graph.neighbors(current)) {
+        if (parents[w] == current && marks[w] != mark && w != root) {
+          marks[w] = mark;
+          affected[count++] = w;
+        }
+      }
+    }
+
+    // best distance of each affected vertex through the rest of the tree
+    int nbSeeds = 0;
+    for (int i = 0; i < count; ++i) {
+      int current = affected[i];
+      distances[current] = UNREACHABLE;
+      for (int w : graph.neighbors(current)) {
+        if (marks[w] != mark && distances[w] != UNREACHABLE && distances[w] + 1 < distances[current]) {
+          distances[current] = distances[w] + 1;
+          parents[current] = w;
+        }
+      }
+      if (distances[current] != UNREACHABLE) {
+        seeds[nbSeeds++] = (long) distances[current] << 32 | current;
+      }
+    }
+    Arrays.sort(seeds, 0, nbSeeds);
+
+    // merge the sorted seeds with a FIFO of improved vertices, both being
+    // processed by nondecreasing distance (Dijkstra with unit weights)
+    int seed = 0;
+    int head = 0;
+    int tail = 0;
+    while (seed < nbSeeds || head < tail) {
+      int current;
+      if (head == tail || seed < nbSeeds && (int) (seeds[seed] >>> 32) <= distances[queue[head]]) {
+        long entry = seeds[seed++];
+        current = (int) entry;
+        if ((int) (entry >>> 32) != distances[current]) {
+          // stale, improved since and already queued
+          continue;
+        }
+      } else {
+        current = queue[head++];
+      }
+
+      for (int w : graph.neighbors(current)) {
+        if (marks[w] == mark && distances[current] + 1 < distances[w]) {
+          distances[w] = distances[current] + 1;
+          parents[w] = current;
+          queue[tail++] = w;
+        }
+      }
+    }
+  }
+
+  /**
+   * Full BFS from the given root.
+   */
+  private void rebuild(int source, IntVertexLabelling treatments) {
+    Arrays.fill(distances, UNREACHABLE);
+    Arrays.fill(parents, -1);
+    root = source;
+
+    distances[source] = 0;
+    treatments.setInt(source, 1);
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = source;
+    while (head < tail) {
+      int current = queue[head++];
+      for (int w : graph.neighbors(current)) {
+        if (UNREACHABLE == distances[w]) {
+          distances[w] = distances[current] + 1;
+          parents[w] = current;
+          treatments.setInt(w, 1);
+          queue[tail++] = w;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package gre.lab2.groupe11;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event covering one phase of a maze generation.
+ * <p>
+ * Creating, beginning and committing an event costs next to nothing while no
+ * recording is running, but loading the class initialises the flight recorder:
+ * events are thus only created once it is initialised. The extra timings of
+ * the merge phase are only taken when the event is enabled.
+ */
+@Name("gre.lab2.GenerationPhase")
+@Label("Maze Generation Phase")
+@Category({"GRE Lab2", "Generation"})
+@Description("A phase of a maze generation: edge enumeration, shuffle or merge of the components")
+final class GenerationPhaseEvent extends Event {
+  @Label("Generator")
+  String generator;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Vertices")
+  int vertices;
+
+  @Label("Edges")
+  int edges;
+
+  @Label("Unions")
+  @Description("Successful unions, i.e. walls carved")
+  int unions;
+
+  @Label("Union-Find Time")
+  @Description("Time spent in union-find operations during the merge phase")
+  @Timespan(Timespan.NANOSECONDS)
+  long unionFindTime;
+
+  @Label("Carving Time")
+  @Description("Time spent updating the builder, observer dispatch included, during the merge phase")
+  @Timespan(Timespan.NANOSECONDS)
+  long carvingTime;
+
+  GenerationPhaseEvent(String generator, String phase, int vertices) {
+    this.generator = generator;
+    this.phase = phase;
+    this.vertices = vertices;
+  }
+}
@@ -0,0 +1,29 @@
+package gre.lab2.groupe11;
+
+import gre.lab2.gui.InstanceProvider;
+import gre.lab2.gui.MazeGenerator;
+import gre.lab2.gui.MazeSolver;
+
+/**
+ * Implementations of this group: Kruskal generation and BFS solving.
+ * <p>
+ * Registered as an {@link InstanceProvider} service, so that tools discovering
+ * the implementations through {@link java.util.ServiceLoader} pick it up.
+ */
+public final class Groupe11InstanceProvider implements InstanceProvider {
+
+  @Override
+  public MazeGenerator generator() {
+    return new KruskalMazeGenerator();
+  }
+
+  @Override
+  public MazeGenerator generator(long seed) {
+    return new KruskalMazeGenerator(seed);
+  }
+
+  @Override
+  public MazeSolver solver() {
+    return new BfsSolver();
+  }
+}
@@ -0,0 +1,678 @@
+package gre.lab2.groupe11;
+
+import gre.lab2.graph.Graph;
+import gre.lab2.graph.GraphObserver;
+import gre.lab2.graph.GridGraph2D;
+import gre.lab2.graph.IntVertexLabelling;
+import gre.lab2.graph.ObservableGraph;
+import gre.lab2.graph.VertexLabelling;
+import gre.lab2.gui.MazeSolver;
+
+import java.util.*;
+
+/**
+ * Hierarchical solver for large grids, in the spirit of HPA* (Botea, Müller
+ * and Schaeffer): the grid is split into square clusters and queries are
+ * answered on a small abstract graph before being refined cell by cell.
+ * <p>
+ * The abstract nodes are the entrances of the clusters, i.e. the cells having
+ * a passage to a neighboring cluster. Two entrances of a same cluster are
+ * linked by the length of the shortest path between them that stays within
+ * the cluster, two entrances facing each other across a cluster border by a
+ * single step. The abstract graph thus preserves distances and the paths found
+ * are shortest paths: a query connects its ends to the entrances of their
+ * clusters, runs A* on the abstract graph with the Manhattan distance as
+ * heuristic, then refines only the intra-cluster legs of the chosen route.
+ * <p>
+ * Clusters are built lazily, on the first query going through them, and their
+ * entrance-to-entrance distances are stored sparsely: within a maze, a cluster
+ * splits into many small components and only entrances of a same component
+ * are linked. When subscribed to its graph, see {@link #attach(GridGraph2D)},
+ * the solver marks the clusters touched by each added or removed edge as
+ * dirty; they are rebuilt on the next query going through them, so that the
+ * index stays valid for editable mazes. A query running between an edit and
+ * its notification may find a leg of its route gone or longer than indexed,
+ * as the index is stale: the clusters involved
+ * are then rebuilt and the query answered again, by a {@link BfsSolver} if
+ * the grid keeps changing under it.
+ * <p>
+ * Queries on any other graph than the one the solver was built for fall back
+ * to a {@link BfsSolver}.
+ */
+public final class HierarchicalSolver implements MazeSolver, GraphObserver {
+
+  /** Side of the clusters, in cells, unless specified otherwise */
+  public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+  private static final int UNREACHABLE = -1;
+
+  /**
+   * Entrances of a cluster and the intra-cluster distances between them.
+   */
+  private static final class Cluster {
+    /** Entrances, in increasing order */
+    final int[] nodes;
+    /** Links of entrance {@code i}: {@code [offsets[i], offsets[i + 1])} */
+    final int[] offsets;
+    /** Index of the linked entrance */
+    final int[] targets;
+    /** Length of the link */
+    final int[] lengths;
+
+    Cluster(int[] nodes, int[] offsets, int[] targets, int[] lengths) {
+      this.nodes = nodes;
+      this.offsets = offsets;
+      this.targets = targets;
+      this.lengths = lengths;
+    }
+
+    int indexOf(int v) {
+      return Arrays.binarySearch(nodes, v);
+    }
+  }
+
+  private final GridGraph2D graph;
+  private final int width;
+  private final int height;
+  private final int clusterSize;
+  private final int clustersX;
+
+  /** Built clusters, {@code null} while not built yet or dirty */
+  private final Cluster[] clusters;
+  private int rebuilds;
+
+  // scratch buffers of the searches within a cluster, by local cell index
+  private final int[] localDistances;
+  private final int[] localParents;
+  private final int[] localQueue;
+  private final int[] localMarks;
+  private int localEpoch;
+
+  /**
+   * Creates a solver bound to the given grid, with clusters of
+   * {@value #DEFAULT_CLUSTER_SIZE} cells aside.
+   *
+   * @param graph The grid the index is built for
+   * @throws NullPointerException if {@code graph} is {@code null}
+   */
+  public HierarchicalSolver(GridGraph2D graph) {
+    this(graph, DEFAULT_CLUSTER_SIZE);
+  }
+
+  /**
+   * Creates a solver bound to the given grid. The solver must then be
+   * subscribed to the grid if it may be modified.
+   *
+   * @param graph       The grid the index is built for
+   * @param clusterSize Side of the clusters, in cells
+   * @throws NullPointerException     if {@code graph} is {@code null}
+   * @throws IllegalArgumentException if {@code clusterSize} is not within
+   *                                  [2, 256]
+   */
+  public HierarchicalSolver(GridGraph2D graph, int clusterSize) {
+    this.graph = Objects.requireNonNull(graph, "graph is null");
+    if (clusterSize < 2 || clusterSize > 256) {
+      throw new IllegalArgumentException("clusterSize must be within [2, 256]");
+    }
+
+    this.width = graph.width();
+    this.height = graph.height();
+    this.clusterSize = clusterSize;
+    this.clustersX = (width + clusterSize - 1) / clusterSize;
+    int clustersY = (height + clusterSize - 1) / clusterSize;
+    this.clusters = new Cluster[clustersX * clustersY];
+
+    int cells = clusterSize * clusterSize;
+    localDistances = new int[cells];
+    localParents = new int[cells];
+    localQueue = new int[cells];
+    localMarks = new int[cells];
+  }
+
+  /**
+   * Creates a solver bound to the given grid and subscribes it to the grid's
+   * modifications.
+   *
+   * @param graph An observable grid
+   * @param <G>   Type of the grid
+   * @return The subscribed solver
+   * @throws NullPointerException if {@code graph} is {@code null}
+   */
+  public static <G extends GridGraph2D & ObservableGraph> HierarchicalSolver attach(G graph) {
+    HierarchicalSolver solver = new HierarchicalSolver(graph);
+    graph.subscribe(solver);
+    return solver;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The vertices visited by the searches within the clusters of
+   * {@code source} and {@code destination}, the entrances expanded by the
+   * abstract search and the cells visited while refining the route are
+   * marked in {@code treatments}.
+   *
+   * @return An unmodifiable list representing a shortest path from
+   *         {@code source} to {@code destination}, empty if
+   *         {@code destination} is unreachable
+   * @throws NullPointerException     if {@code graph} or {@code treatments} are
+   *                                  {@code null}.
+   * @throws IllegalArgumentException if {@code source} or {@code destination} are
+   *                                  not within the {@code graph}.
+   */
+  @Override
+  public synchronized List<Integer> solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments) {
+    if (null == graph || null == treatments) {
+      throw new NullPointerException("graph or treatments is null");
+    }
+
+    if (graph != this.graph) {
+      return new BfsSolver().solve(graph, source, destination, treatments);
+    }
+
+    if (!graph.vertexExists(source) || !graph.vertexExists(destination)) {
+      throw new IllegalArgumentException("source or destination is not a vertex of graph");
+    }
+
+    IntVertexLabelling labels = IntVertexLabelling.of(treatments);
+    if (source == destination) {
+      treat(labels, source);
+      return List.of(source);
+    }
+
+    for (int attempt = 0; attempt < 2; ++attempt) {
+      int[][] route = abstractRoute(source, destination, labels);
+      if (route == null) {
+        return Collections.emptyList();
+      }
+      List<Integer> path = refine(route, labels);
+      if (path != null) {
+        return Collections.unmodifiableList(path);
+      }
+    }
+    return new BfsSolver().solve(graph, source, destination, treatments);
+  }
+
+  /**
+   * Refines each leg of an abstract route: a step across a border, or a
+   * search within a cluster.
+   *
+   * @param route The route and its distances, as found by {@link #abstractRoute}
+   * @return The path, or {@code null} if a leg no longer exists in the grid
+   *         or got longer, the clusters it belongs to being then marked as
+   *         dirty
+   */
+  private List<Integer> refine(int[][] route, IntVertexLabelling labels) {
+    int[] vertices = route[0];
+    int[] distances = route[1];
+    List<Integer> path = new ArrayList<>();
+    path.add(vertices[0]);
+    for (int i = 1; i < vertices.length; ++i) {
+      int from = vertices[i - 1];
+      int to = vertices[i];
+      int c = clusterOf(from);
+      if (c != clusterOf(to)) {
+        if (!graph.areAdjacent(from, to)) {
+          invalidate(from, to);
+          return null;
+        }
+        path.add(to);
+        continue;
+      }
+      if (localSearch(c, from, to, labels) != distances[i] - distances[i - 1]) {
+        clusters[c] = null;
+        return null;
+      }
+      int start = path.size();
+      for (int v = to; v != from; v = parentOf(c, v)) {
+        path.add(v);
+      }
+      Collections.reverse(path.subList(start, path.size()));
+    }
+    return path;
+  }
+
+  /**
+   * @return Number of clusters built or rebuilt so far
+   */
+  public synchronized int rebuilds() {
+    return rebuilds;
+  }
+
+  @Override
+  public synchronized void onEdgeAdded(int u, int v) {
+    invalidate(u, v);
+  }
+
+  @Override
+  public synchronized void onEdgeRemoved(int u, int v) {
+    invalidate(u, v);
+  }
+
+  /**
+   * Marks the clusters of both ends as dirty: an edge within a cluster
+   * changes its distances, an edge across a border the entrances of both.
+   */
+  private void invalidate(int u, int v) {
+    clusters[clusterOf(u)] = null;
+    clusters[clusterOf(v)] = null;
+  }
+
+  /**
+   * A* on the abstract graph, extended with the source and the destination
+   * linked to the entrances of their clusters. Vertices are identified as
+   * such: a source or destination which is also an entrance is a single node.
+   *
+   * @return The vertices of the route, from {@code source} to
+   *         {@code destination}, then their distances from {@code source},
+   *         or {@code null} if there is none
+   */
+  private int[][] abstractRoute(int source, int destination, IntVertexLabelling labels) {
+    int sourceCluster = clusterOf(source);
+    int targetCluster = clusterOf(destination);
+
+    // distances from the source and to the destination within their clusters
+    Cluster start = cluster(sourceCluster);
+    localSearch(sourceCluster, source, -1, labels);
+    int[] fromSource = entranceDistances(start, sourceCluster);
+    int direct = sourceCluster == targetCluster ? localDistance(sourceCluster, destination) : UNREACHABLE;
+    Cluster target = cluster(targetCluster);
+    localSearch(targetCluster, destination, -1, labels);
+    int[] toDestination = entranceDistances(target, targetCluster);
+
+    Search search = new Search(destination);
+    int sourceSlot = search.relax(-1, source, 0, -1);
+    if (direct != UNREACHABLE) {
+      search.relax(-1, destination, direct, sourceSlot);
+    }
+    for (int i = 0; i < start.nodes.length; ++i) {
+      if (fromSource[i] != UNREACHABLE) {
+        search.relax(search.find(start.nodes[i]), start.nodes[i], fromSource[i], sourceSlot);
+      }
+    }
+
+    int[] neighbors = new int[4];
+    while (!search.isEmpty()) {
+      int slot = search.poll();
+      if (slot < 0) {
+        continue;
+      }
+      int v = search.vertices[slot];
+      if (v == destination) {
+        return search.route(slot);
+      }
+
+      int c = clusterOf(v);
+      Cluster cluster = cluster(c);
+      int index = cluster.indexOf(v);
+      if (index < 0) {
+        // the source, not an entrance, already linked to its cluster
+        continue;
+      }
+      treat(labels, v);
+      int g = search.distances[slot];
+
+      if (c == targetCluster && toDestination[index] != UNREACHABLE) {
+        search.relax(search.find(destination), destination, g + toDestination[index], slot);
+      }
+      for (int k = cluster.offsets[index]; k < cluster.offsets[index + 1]; ++k) {
+        int w = cluster.nodes[cluster.targets[k]];
+        search.relax(search.find(w), w, g + cluster.lengths[k], slot);
+      }
+      for (int k = 0, count = borderNeighbors(v, neighbors); k < count; ++k) {
+        search.relax(search.find(neighbors[k]), neighbors[k], g + 1, slot);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return The distances from the last local search to the entrances of
+   *         {@code cluster}
+   */
+  private int[] entranceDistances(Cluster cluster, int c) {
+    int[] distances = new int[cluster.nodes.length];
+    for (int i = 0; i < distances.length; ++i) {
+      distances[i] = localDistance(c, cluster.nodes[i]);
+    }
+    return distances;
+  }
+
+  /**
+   * @return The distance of {@code v} in the last local search, or
+   *         {@link #UNREACHABLE}
+   */
+  private int localDistance(int c, int v) {
+    int local = localIndex(c, v);
+    return localMarks[local] == localEpoch ? localDistances[local] : UNREACHABLE;
+  }
+
+  /**
+   * @return The cluster, built if necessary
+   */
+  private Cluster cluster(int c) {
+    Cluster cluster = clusters[c];
+    if (cluster == null) {
+      cluster = build(c);
+      clusters[c] = cluster;
+      ++rebuilds;
+    }
+    return cluster;
+  }
+
+  private Cluster build(int c) {
+    int x0 = (c % clustersX) * clusterSize;
+    int y0 = (c / clustersX) * clusterSize;
+    int x1 = Math.min(x0 + clusterSize, width);
+    int y1 = Math.min(y0 + clusterSize, height);
+
+    // entrances, in increasing order since scanned row by row
+    int[] nodes = new int[(x1 - x0) * (y1 - y0)];
+    int[] neighbors = new int[4];
+    int count = 0;
+    for (int y = y0; y < y1; ++y) {
+      for (int x = x0; x < x1; ++x) {
+        if (borderNeighbors(y * width + x, neighbors) > 0) {
+          nodes[count++] = y * width + x;
+        }
+      }
+    }
+    nodes = Arrays.copyOf(nodes, count);
+
+    // one search per entrance, only linked to the entrances of its component
+    int[] offsets = new int[count + 1];
+    int[] targets = new int[4 * count + 1];
+    int[] lengths = new int[4 * count + 1];
+    int links = 0;
+    for (int i = 0; i < count; ++i) {
+      localSearch(c, nodes[i], -1, null);
+      for (int j = 0; j < count; ++j) {
+        int distance = localDistance(c, nodes[j]);
+        if (j != i && distance != UNREACHABLE) {
+          if (links == targets.length) {
+            targets = Arrays.copyOf(targets, 2 * links);
+            lengths = Arrays.copyOf(lengths, 2 * links);
+          }
+          targets[links] = j;
+          lengths[links++] = distance;
+        }
+      }
+      offsets[i + 1] = links;
+    }
+
+    return new Cluster(nodes, offsets, Arrays.copyOf(targets, links), Arrays.copyOf(lengths, links));
+  }
+
+  /**
+   * BFS restricted to a cluster, stopped once {@code target} is reached.
+   * Results are read through {@link #localMarks} stamped with
+   * {@link #localEpoch}.
+   *
+   * @param labels Treatments to update, {@code null} for none
+   * @return The distance to {@code target}, or {@link #UNREACHABLE}
+   */
+  private int localSearch(int c, int from, int target, IntVertexLabelling labels) {
+    int x0 = (c % clustersX) * clusterSize;
+    int y0 = (c / clustersX) * clusterSize;
+    int x1 = Math.min(x0 + clusterSize, width);
+    int y1 = Math.min(y0 + clusterSize, height);
+    int epoch = ++localEpoch;
+
+    int head = 0;
+    int tail = 0;
+    int start = localIndex(c, from);
+    localMarks[start] = epoch;
+    localDistances[start] = 0;
+    localParents[start] = from;
+    localQueue[tail++] = from;
+
+    while (head < tail) {
+      int v = localQueue[head++];
+      int local = localIndex(c, v);
+      if (labels != null) {
+        treat(labels, v);
+      }
+      if (v == target) {
+        return localDistances[local];
+      }
+
+      int x = v % width;
+      int y = v / width;
+      for (int k = 0; k < 4; ++k) {
+        int w;
+        if (k == 0 && x > x0) {
+          w = v - 1;
+        } else if (k == 1 && x < x1 - 1) {
+          w = v + 1;
+        } else if (k == 2 && y > y0) {
+          w = v - width;
+        } else if (k == 3 && y < y1 - 1) {
+          w = v + width;
+        } else {
+          continue;
+        }
+
+        int next = localIndex(c, w);
+        if (localMarks[next] != epoch && graph.areAdjacent(v, w)) {
+          localMarks[next] = epoch;
+          localDistances[next] = localDistances[local] + 1;
+          localParents[next] = v;
+          localQueue[tail++] = w;
+        }
+      }
+    }
+    return UNREACHABLE;
+  }
+
+  private int parentOf(int c, int v) {
+    return localParents[localIndex(c, v)];
+  }
+
+  /**
+   * Lists the neighbors of {@code v} lying in another cluster.
+   *
+   * @param out Receives the neighbors, at least 4 entries
+   * @return The number of neighbors, 0 if {@code v} is not an entrance
+   */
+  private int borderNeighbors(int v, int[] out) {
+    int x = v % width;
+    int y = v / width;
+    int count = 0;
+    if (x % clusterSize == 0 && x > 0 && graph.areAdjacent(v, v - 1)) {
+      out[count++] = v - 1;
+    }
+    if ((x + 1) % clusterSize == 0 && x < width - 1 && graph.areAdjacent(v, v + 1)) {
+      out[count++] = v + 1;
+    }
+    if (y % clusterSize == 0 && y > 0 && graph.areAdjacent(v, v - width)) {
+      out[count++] = v - width;
+    }
+    if ((y + 1) % clusterSize == 0 && y < height - 1 && graph.areAdjacent(v, v + width)) {
+      out[count++] = v + width;
+    }
+    return count;
+  }
+
+  private int clusterOf(int v) {
+    return (v / width / clusterSize) * clustersX + (v % width) / clusterSize;
+  }
+
+  private int localIndex(int c, int v) {
+    int x = v % width - (c % clustersX) * clusterSize;
+    int y = v / width - (c / clustersX) * clusterSize;
+    return y * clusterSize + x;
+  }
+
+  private static void treat(IntVertexLabelling labels, int v) {
+    labels.setInt(v, labels.getInt(v) + 1);
+  }
+
+  /**
+   * State of an A* search on the abstract graph: one slot per vertex reached,
+   * found by open addressing, and a binary heap of {@code (f, slot)} pairs
+   * with lazy deletion.
+   */
+  private final class Search {
+    private final int destination;
+    private int[] table = new int[64];
+    private int size;
+
+    int[] vertices = new int[16];
+    int[] distances = new int[16];
+    int[] parents = new int[16];
+    private boolean[] closed = new boolean[16];
+
+    private long[] heap = new long[16];
+    private int heapSize;
+
+    Search(int destination) {
+      this.destination = destination;
+      Arrays.fill(table, -1);
+    }
+
+    /**
+     * @return The slot of {@code v}, or -1 if not reached yet
+     */
+    int find(int v) {
+      for (int i = mix(v) & (table.length - 1); ; i = (i + 1) & (table.length - 1)) {
+        int slot = table[i];
+        if (slot < 0 || vertices[slot] == v) {
+          return slot;
+        }
+      }
+    }
+
+    private int open(int v, int distance, int parent) {
+      if (size == vertices.length) {
+        int capacity = 2 * size;
+        vertices = Arrays.copyOf(vertices, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        closed = Arrays.copyOf(closed, capacity);
+      }
+      if (2 * (size + 1) > table.length) {
+        rehash(2 * table.length);
+      }
+
+      int slot = size++;
+      vertices[slot] = v;
+      distances[slot] = distance;
+      parents[slot] = parent;
+      insert(slot);
+      push(distance, slot);
+      return slot;
+    }
+
+    /**
+     * Reaches {@code v} through {@code parent} at {@code distance}, if shorter.
+     *
+     * @param slot Slot of {@code v}, -1 if not reached yet
+     * @return The slot of {@code v}
+     */
+    int relax(int slot, int v, int distance, int parent) {
+      if (slot < 0) {
+        return open(v, distance, parent);
+      }
+      if (!closed[slot] && distance < distances[slot]) {
+        distances[slot] = distance;
+        parents[slot] = parent;
+        push(distance, slot);
+      }
+      return slot;
+    }
+
+    boolean isEmpty() {
+      return heapSize == 0;
+    }
+
+    /**
+     * @return The open slot of least estimate, or -1 for a stale entry
+     */
+    int poll() {
+      long top = heap[0];
+      heap[0] = heap[--heapSize];
+      siftDown();
+
+      int slot = (int) top;
+      if (closed[slot] || (top >>> 32) != estimate(distances[slot], vertices[slot])) {
+        return -1;
+      }
+      closed[slot] = true;
+      return slot;
+    }
+
+    /**
+     * @return The vertices of the route to {@code slot}, then their distances
+     */
+    int[][] route(int slot) {
+      int length = 0;
+      for (int s = slot; s >= 0; s = parents[s]) {
+        ++length;
+      }
+      int[] route = new int[length];
+      int[] routeDistances = new int[length];
+      for (int s = slot; s >= 0; s = parents[s]) {
+        route[--length] = vertices[s];
+        routeDistances[length] = distances[s];
+      }
+      return new int[][] { route, routeDistances };
+    }
+
+    private long estimate(int distance, int v) {
+      return distance + Math.abs(v % width - destination % width) + Math.abs(v / width - destination / width);
+    }
+
+    private void push(int distance, int slot) {
+      if (heapSize == heap.length) {
+        heap = Arrays.copyOf(heap, 2 * heapSize);
+      }
+      long entry = estimate(distance, vertices[slot]) << 32 | slot;
+      int i = heapSize++;
+      while (i > 0 && heap[(i - 1) >>> 1] > entry) {
+        heap[i] = heap[(i - 1) >>> 1];
+        i = (i - 1) >>> 1;
+      }
+      heap[i] = entry;
+    }
+
+    private void siftDown() {
+      if (heapSize == 0) {
+        return;
+      }
+      long entry = heap[0];
+      int i = 0;
+      for (int child = 1; child < heapSize; child = 2 * i + 1) {
+        if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+          ++child;
+        }
+        if (heap[child] >= entry) {
+          break;
+        }
+        heap[i] = heap[child];
+        i = child;
+      }
+      heap[i] = entry;
+    }
+
+    private void insert(int slot) {
+      int i = mix(vertices[slot]) & (table.length - 1);
+      while (table[i] >= 0) {
+        i = (i + 1) & (table.length - 1);
+      }
+      table[i] = slot;
+    }
+
+    private void rehash(int capacity) {
+      table = new int[capacity];
+      Arrays.fill(table, -1);
+      for (int slot = 0; slot < size; ++slot) {
+        insert(slot);
+      }
+    }
+
+    private int mix(int v) {
+      int h = v * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -3,10 +3,13 @@ package gre.lab2.groupe11;
 import gre.lab2.graph.Edge;
 import gre.lab2.gui.MazeBuilder;
 import gre.lab2.gui.MazeGenerator;
+import gre.lab2.gui.MazeMetrics;
 import gre.lab2.gui.Progression;
+import jdk.jfr.FlightRecorder;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Implementation of the Kruskal algorithm to generate a maze.
@@ -15,6 +18,32 @@ import java.util.List;
  * to keep track of the connected components.
  */
 public final class KruskalMazeGenerator implements MazeGenerator {
+  private static final String NAME = "Kruskal";
+  /** Number of edges between two publications of the metrics */
+  private static final int PUBLISH_INTERVAL = 4096;
+
+  private final Random random;
+
+  /**
+   * Creates a generator producing a different maze on each run.
+   */
+  public KruskalMazeGenerator() {
+    this(new Random());
+  }
+
+  /**
+   * Creates a generator producing the same maze for the same seed and topology,
+   * e.g. for benchmarks or to regenerate a saved maze.
+   *
+   * @param seed Seed of the edge shuffling.
+   */
+  public KruskalMazeGenerator(long seed) {
+    this(new Random(seed));
+  }
+
+  private KruskalMazeGenerator(Random random) {
+    this.random = random;
+  }
 
   /**
    * {@inheritDoc}
@@ -26,21 +55,91 @@ public final class KruskalMazeGenerator implements MazeGenerator {
    */
   @Override
   public void generate(MazeBuilder builder, int from) {
+    int nbVertices = builder.topology().nbVertices();
+    MazeMetrics metrics = MazeMetrics.global();
+
+    // loading an event class initialises the flight recorder, which would cost
+    // more than a small generation: events are only created once it runs
+    boolean recorder = FlightRecorder.isInitialized();
+
+    long begin = System.nanoTime();
+    GenerationPhaseEvent enumeration = recorder ? new GenerationPhaseEvent(NAME, "edges", nbVertices) : null;
+    if (recorder)
+      enumeration.begin();
     List<Edge> edges = builder.topology().edges();
+    if (recorder) {
+      enumeration.edges = edges.size();
+      enumeration.commit();
+    }
+    long enumerated = System.nanoTime();
+    metrics.addPhase(MazeMetrics.Phase.EDGE_ENUMERATION, enumerated - begin);
+
     // instead of sorting the edges, we shuffle them so that the generated maze is
     // random
-    Collections.shuffle(edges);
+    GenerationPhaseEvent shuffle = recorder ? new GenerationPhaseEvent(NAME, "shuffle", nbVertices) : null;
+    if (recorder)
+      shuffle.begin();
+    Collections.shuffle(edges, random);
+    if (recorder) {
+      shuffle.edges = edges.size();
+      shuffle.commit();
+    }
+    long shuffled = System.nanoTime();
+    metrics.addPhase(MazeMetrics.Phase.SHUFFLE, shuffled - enumerated);
+
+    // the split between union-find and carving costs two clock reads per edge,
+    // it is only measured while recording
+    GenerationPhaseEvent merge = recorder ? new GenerationPhaseEvent(NAME, "merge", nbVertices) : null;
+    boolean timed = recorder && merge.isEnabled();
+    if (recorder)
+      merge.begin();
+    long unionFindTime = 0;
+    long carvingTime = 0;
 
     // we use a UnionFind data structure to keep track of the connected components
-    UnionFind uf = new UnionFind(builder.topology().nbVertices());
+    UnionFind uf = new UnionFind(nbVertices);
+    int unions = 0;
+    int scanned = 0;
+    long publishedUnions = 0;
+    long publishedFinds = 0;
+    long publishedPathLength = 0;
     for (Edge e : edges) {
+      long start = timed ? System.nanoTime() : 0;
       // if the vertices are not in the same connected component, we merge them
-      if (uf.union(e.u(), e.v())) {
+      boolean merged = uf.union(e.u(), e.v());
+      long united = timed ? System.nanoTime() : 0;
+      unionFindTime += united - start;
+
+      if (merged) {
         // mark the vertices as processed and remove the wall between them
         builder.progressions().setLabel(e.u(), Progression.PROCESSED);
         builder.progressions().setLabel(e.v(), Progression.PROCESSED);
         builder.removeWall(e.u(), e.v());
+        ++unions;
+        if (timed)
+          carvingTime += System.nanoTime() - united;
+      }
+
+      // batched so that the live metrics cost nothing per edge
+      if (++scanned % PUBLISH_INTERVAL == 0) {
+        metrics.addUnionFind(unions - publishedUnions, uf.finds() - publishedFinds,
+              uf.pathLength() - publishedPathLength);
+        publishedUnions = unions;
+        publishedFinds = uf.finds();
+        publishedPathLength = uf.pathLength();
       }
     }
+    metrics.addUnionFind(unions - publishedUnions, uf.finds() - publishedFinds,
+          uf.pathLength() - publishedPathLength);
+    metrics.addPhase(MazeMetrics.Phase.MERGE, System.nanoTime() - shuffled);
+    metrics.generationDone();
+
+    if (recorder) {
+      merge.edges = edges.size();
+      merge.unions = unions;
+      merge.unionFindTime = unionFindTime;
+      merge.carvingTime = carvingTime;
+      merge.commit();
+    }
   }
 }
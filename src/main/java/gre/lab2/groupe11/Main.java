@@ -1,8 +1,6 @@
 package gre.lab2.groupe11;
 
 import gre.lab2.gui.InstanceProvider;
-import gre.lab2.gui.MazeGenerator;
-import gre.lab2.gui.MazeSolver;
 import gre.lab2.gui.impl.MainViewController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -23,17 +21,7 @@ public final class Main extends Application {
         stage.setScene(scene);
 
         MainViewController controller = fxmlLoader.getController();
-        controller.setInstanceProvider(new InstanceProvider() {
-            @Override
-            public MazeGenerator generator() {
-                return new KruskalMazeGenerator();
-            }
-
-            @Override
-            public MazeSolver solver() {
-                return new BfsSolver();
-            }
-        });
+        controller.setInstanceProvider(new Groupe11InstanceProvider());
 
         stage.show();
     }
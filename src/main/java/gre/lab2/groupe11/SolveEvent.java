@@ -0,0 +1,43 @@
+package gre.lab2.groupe11;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event covering a whole maze resolution.
+ */
+@Name("gre.lab2.Solve")
+@Label("Maze Solve")
+@Category({"GRE Lab2", "Solving"})
+@Description("A search between two vertices of a maze")
+final class SolveEvent extends Event {
+  @Label("Solver")
+  String solver;
+
+  @Label("Vertices")
+  int vertices;
+
+  @Label("Source")
+  int source;
+
+  @Label("Destination")
+  int destination;
+
+  @Label("Status")
+  String status;
+
+  @Label("Vertices Expanded")
+  long expanded;
+
+  @Label("Edges Scanned")
+  long edgesScanned;
+
+  @Label("Path Length")
+  int pathLength;
+
+  SolveEvent(String solver, int vertices, int source, int destination) {
+    this.solver = solver;
+    this.vertices = vertices;
+    this.source = source;
+    this.destination = destination;
+  }
+}
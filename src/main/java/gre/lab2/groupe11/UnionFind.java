@@ -13,6 +13,9 @@ final class UnionFind {
 
   private final int[] parents;
   private final int[] ranks;
+  // statistics, read by the generator to publish its metrics
+  private long finds;
+  private long pathLength;
 
   public UnionFind(int size) {
     parents = IntStream.range(0, size).toArray();
@@ -28,10 +31,12 @@ final class UnionFind {
    */
   public int find(int v) {
     assertWithinBounds(v);
+    ++finds;
     // standard path halving methodology
     while (v != parents[v]) {
       parents[v] = parents[parents[v]];
       v = parents[v];
+      ++pathLength;
     }
 
     return v;
@@ -69,6 +74,22 @@ final class UnionFind {
     return true;
   }
 
+  /**
+   * @return The number of {@link #find(int)} calls so far, including those
+   *         made by {@link #union(int, int)}
+   */
+  public long finds() {
+    return finds;
+  }
+
+  /**
+   * @return The total number of parent links followed by {@link #find(int)}
+   *         calls so far
+   */
+  public long pathLength() {
+    return pathLength;
+  }
+
   private void assertWithinBounds(int v) {
     if (v < 0 || v >= parents.length) {
       throw new IndexOutOfBoundsException("Vertex " + v + " is out of bounds");
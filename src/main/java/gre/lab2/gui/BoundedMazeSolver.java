@@ -0,0 +1,48 @@
+package gre.lab2.gui;
+
+import gre.lab2.graph.Graph;
+import gre.lab2.graph.VertexLabelling;
+
+import java.util.List;
+
+/**
+ * <p>Solver de labyrinthes capable de s'arrêter avant la fin selon un {@link SolveBudget}, ou lorsque le thread
+ * qui l'exécute est interrompu.</p>
+ *
+ * <p>Les limites sont vérifiées de manière amortie (typiquement tous les quelques milliers de traitements) afin de
+ * ne pas pénaliser la boucle principale.</p>
+ */
+@FunctionalInterface
+public interface BoundedMazeSolver extends MazeSolver {
+  /**
+   * <p>Détermine un chemin entre deux positions dans un labyrinthe, dans les limites du budget donné.</p>
+   *
+   * <p>Contrairement à {@link MazeSolver#solve(Graph, int, int, VertexLabelling)}, le graphe n'a pas besoin
+   * d'être connexe : l'absence de chemin est signalée par {@link SolveResult.Status#UNREACHABLE}.</p>
+   *
+   * <p>Si le thread courant est interrompu, la résolution s'arrête avec {@link SolveResult.Status#CANCELLED} et
+   * l'état d'interruption est conservé.</p>
+   *
+   * @param graph Un {@link Graph} représentant le labyrinthe.
+   * @param source Sommet de départ.
+   * @param destination Sommet de destination.
+   * @param treatments Indication des sommets traités par l'algorithme et du nombre de fois qu'ils l'ont été.
+   * @param budget Limites de la résolution.
+   *
+   * @return Le résultat de la résolution.
+   * @throws NullPointerException si {@code graph}, {@code treatments} ou {@code budget} sont {@code null}.
+   * @throws IllegalArgumentException si {@code source} ou  {@code destination} ne sont pas des sommets de {@code graph}.
+   */
+  SolveResult solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments, SolveBudget budget);
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>L'implémentation par défaut résout sans limite et retourne une liste vide si aucun chemin n'a été trouvé
+   * (destination inatteignable ou interruption).</p>
+   */
+  @Override
+  default List<Integer> solve(Graph graph, int source, int destination, VertexLabelling<Integer> treatments) {
+    return solve(graph, source, destination, treatments, SolveBudget.unlimited()).path();
+  }
+}
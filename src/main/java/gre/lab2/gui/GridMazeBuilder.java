@@ -0,0 +1,69 @@
+package gre.lab2.gui;
+
+import gre.lab2.graph.Graph;
+import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.VertexLabelling;
+
+/**
+ * <p>Construction d'un labyrinthe sans interface ni observateur, par exemple pour un usage en ligne de commande
+ * ou dans un service.</p>
+ *
+ * <p>La topologie est la grille complète, les passages étant directement ajoutés à une {@link GridGraph} de
+ * mêmes dimensions. Les indications de progression sont ignorées.</p>
+ */
+public final class GridMazeBuilder implements MazeBuilder {
+  private static final VertexLabelling<Progression> IGNORED_PROGRESSIONS = new VertexLabelling<>() {
+    @Override
+    public Progression getLabel(int v) {
+      return Progression.PENDING;
+    }
+
+    @Override
+    public void setLabel(int v, Progression label) {}
+  };
+
+  private final GridGraph topology;
+  private final GridGraph maze;
+
+  /**
+   * Construit un labyrinthe dont toutes les cases sont initialement entourées de murs.
+   *
+   * @param width Largeur de la grille.
+   * @param height Hauteur de la grille.
+   * @throws IllegalArgumentException si {@code width} ou {@code height} sont négatifs.
+   */
+  public GridMazeBuilder(int width, int height) {
+    this.topology = new GridGraph(width, height);
+    GridGraph.bindAll(topology);
+    this.maze = new GridGraph(width, height);
+  }
+
+  /**
+   * @return Le labyrinthe construit.
+   */
+  public GridGraph maze() {
+    return maze;
+  }
+
+  @Override
+  public Graph topology() {
+    return topology;
+  }
+
+  @Override
+  public VertexLabelling<Progression> progressions() {
+    return IGNORED_PROGRESSIONS;
+  }
+
+  @Override
+  public void addWall(int u, int v) {
+    maze.removeEdge(u, v);
+  }
+
+  @Override
+  public void removeWall(int u, int v) {
+    if (!topology.areAdjacent(u, v))
+      throw new IllegalArgumentException("No passage between " + u + " and " + v + " in the topology");
+    maze.addEdge(u, v);
+  }
+}
@@ -9,6 +9,18 @@ public interface InstanceProvider {
      */
     MazeGenerator generator();
 
+    /**
+     * <p>Générateur reproductible : la même graine produit le même labyrinthe pour une même topologie.</p>
+     *
+     * <p>Par défaut, la graine est ignorée et {@link #generator()} est retourné.</p>
+     *
+     * @param seed Graine de génération.
+     * @return Une implémentation concrète de {@link MazeGenerator}.
+     */
+    default MazeGenerator generator(long seed) {
+        return generator();
+    }
+
     /**
      * @return Une implémentation concrète de {@link MazeSolver}.
      */
@@ -0,0 +1,199 @@
+package gre.lab2.gui;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Compteurs globaux alimentés par les générateurs et les solveurs, consultables en direct depuis n'importe quel
+ * thread et exposés par JMX.</p>
+ *
+ * <p>Les compteurs sont répartis ({@link LongAdder}) : plusieurs générations ou résolutions concurrentes ne se
+ * disputent pas une même ligne de cache. Pour rester négligeables, les mises à jour sont faites par lots, les
+ * implémentations accumulant localement puis publiant régulièrement (par exemple lors de leurs vérifications
+ * périodiques d'interruption) et en fin de traitement.</p>
+ */
+public final class MazeMetrics implements MazeMetricsMXBean {
+  /**
+   * Nom JMX sous lequel l'instance globale est enregistrée.
+   */
+  public static final String OBJECT_NAME = "gre.lab2:type=MazeMetrics";
+
+  /**
+   * Propriété système qui, à {@code false}, désactive l'enregistrement JMX, dont l'initialisation coûte plusieurs
+   * centaines de millisecondes au démarrage.
+   */
+  public static final String JMX_PROPERTY = "gre.lab2.metrics.jmx";
+
+  /**
+   * Phase d'une génération ou d'une résolution, dont la durée est mesurée.
+   */
+  public enum Phase {
+    EDGE_ENUMERATION, SHUFFLE, MERGE, SOLVE
+  }
+
+  private static final MazeMetrics GLOBAL = register(new MazeMetrics());
+
+  private final LongAdder generations = new LongAdder();
+  private final LongAdder solves = new LongAdder();
+  private final LongAdder verticesExpanded = new LongAdder();
+  private final LongAdder edgesScanned = new LongAdder();
+  private final LongAccumulator queueHighWaterMark = new LongAccumulator(Math::max, 0);
+  private final LongAdder unions = new LongAdder();
+  private final LongAdder finds = new LongAdder();
+  private final LongAdder findPathLength = new LongAdder();
+  private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+
+  /**
+   * Construit un ensemble de compteurs indépendant, non enregistré. Les implémentations utilisent normalement
+   * {@link #global()}.
+   */
+  public MazeMetrics() {
+    for (int i = 0; i < phaseNanos.length; ++i)
+      phaseNanos[i] = new LongAdder();
+  }
+
+  /**
+   * @return Les compteurs globaux, enregistrés auprès du serveur JMX de la plateforme sauf si
+   * {@value #JMX_PROPERTY} vaut {@code false}.
+   */
+  public static MazeMetrics global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Publie l'avancement d'un solveur.
+   *
+   * @param expanded Sommets développés depuis la dernière publication.
+   * @param scanned  Arêtes parcourues depuis la dernière publication.
+   * @param queue    Taille actuelle de la file ou de la frontière.
+   */
+  public void addSearch(long expanded, long scanned, long queue) {
+    verticesExpanded.add(expanded);
+    edgesScanned.add(scanned);
+    queueHighWaterMark.accumulate(queue);
+  }
+
+  /**
+   * Publie l'avancement d'un générateur utilisant une structure union-find.
+   *
+   * @param unions     Unions effectives depuis la dernière publication.
+   * @param finds      Recherches de représentant depuis la dernière publication.
+   * @param pathLength Somme des longueurs des chemins parcourus par ces recherches.
+   */
+  public void addUnionFind(long unions, long finds, long pathLength) {
+    this.unions.add(unions);
+    this.finds.add(finds);
+    this.findPathLength.add(pathLength);
+  }
+
+  /**
+   * @param phase Phase terminée.
+   * @param nanos Sa durée, en nanosecondes.
+   */
+  public void addPhase(Phase phase, long nanos) {
+    phaseNanos[phase.ordinal()].add(nanos);
+  }
+
+  /**
+   * Signale la fin d'une génération.
+   */
+  public void generationDone() {
+    generations.increment();
+  }
+
+  /**
+   * Signale la fin d'une résolution.
+   */
+  public void solveDone() {
+    solves.increment();
+  }
+
+  @Override
+  public long getGenerations() {
+    return generations.sum();
+  }
+
+  @Override
+  public long getSolves() {
+    return solves.sum();
+  }
+
+  @Override
+  public long getVerticesExpanded() {
+    return verticesExpanded.sum();
+  }
+
+  @Override
+  public long getEdgesScanned() {
+    return edgesScanned.sum();
+  }
+
+  @Override
+  public long getQueueHighWaterMark() {
+    return queueHighWaterMark.get();
+  }
+
+  @Override
+  public long getUnions() {
+    return unions.sum();
+  }
+
+  @Override
+  public long getFinds() {
+    return finds.sum();
+  }
+
+  @Override
+  public double getMeanFindPathLength() {
+    long count = finds.sum();
+    return count == 0 ? 0 : (double) findPathLength.sum() / count;
+  }
+
+  @Override
+  public long getEdgeEnumerationNanos() {
+    return phaseNanos[Phase.EDGE_ENUMERATION.ordinal()].sum();
+  }
+
+  @Override
+  public long getShuffleNanos() {
+    return phaseNanos[Phase.SHUFFLE.ordinal()].sum();
+  }
+
+  @Override
+  public long getMergeNanos() {
+    return phaseNanos[Phase.MERGE.ordinal()].sum();
+  }
+
+  @Override
+  public long getSolveNanos() {
+    return phaseNanos[Phase.SOLVE.ordinal()].sum();
+  }
+
+  @Override
+  public void reset() {
+    generations.reset();
+    solves.reset();
+    verticesExpanded.reset();
+    edgesScanned.reset();
+    queueHighWaterMark.reset();
+    unions.reset();
+    finds.reset();
+    findPathLength.reset();
+    for (LongAdder nanos : phaseNanos)
+      nanos.reset();
+  }
+
+  private static MazeMetrics register(MazeMetrics metrics) {
+    if (!Boolean.parseBoolean(System.getProperty(JMX_PROPERTY, "true")))
+      return metrics;
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+    } catch (JMException | SecurityException e) {
+      // Métriques toujours utilisables localement, seule l'exposition JMX est perdue
+    }
+    return metrics;
+  }
+}
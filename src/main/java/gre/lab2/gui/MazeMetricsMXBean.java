@@ -0,0 +1,73 @@
+package gre.lab2.gui;
+
+/**
+ * <p>Vue JMX de {@link MazeMetrics}, enregistrée sous le nom {@value MazeMetrics#OBJECT_NAME}.</p>
+ *
+ * <p>Tous les compteurs sont cumulés depuis le démarrage ou le dernier {@link #reset()}.</p>
+ */
+public interface MazeMetricsMXBean {
+  /**
+   * @return Nombre de générations terminées.
+   */
+  long getGenerations();
+
+  /**
+   * @return Nombre de résolutions terminées.
+   */
+  long getSolves();
+
+  /**
+   * @return Nombre de sommets développés par les solveurs.
+   */
+  long getVerticesExpanded();
+
+  /**
+   * @return Nombre d'arêtes parcourues par les solveurs.
+   */
+  long getEdgesScanned();
+
+  /**
+   * @return Plus grande taille de file (ou frontière) atteinte par un solveur.
+   */
+  long getQueueHighWaterMark();
+
+  /**
+   * @return Nombre d'unions effectives, i.e. de murs retirés par les générateurs.
+   */
+  long getUnions();
+
+  /**
+   * @return Nombre de recherches de représentant dans les structures union-find.
+   */
+  long getFinds();
+
+  /**
+   * @return Longueur moyenne des chemins parcourus par une recherche de représentant.
+   */
+  double getMeanFindPathLength();
+
+  /**
+   * @return Temps passé à énumérer les arêtes de la topologie, en nanosecondes.
+   */
+  long getEdgeEnumerationNanos();
+
+  /**
+   * @return Temps passé à mélanger les arêtes, en nanosecondes.
+   */
+  long getShuffleNanos();
+
+  /**
+   * @return Temps passé à fusionner les composantes et retirer les murs, en nanosecondes.
+   */
+  long getMergeNanos();
+
+  /**
+   * @return Temps passé à résoudre, en nanosecondes.
+   */
+  long getSolveNanos();
+
+  /**
+   * Remet tous les compteurs à zéro.
+   */
+  void reset();
+}
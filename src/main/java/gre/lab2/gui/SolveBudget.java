@@ -0,0 +1,68 @@
+package gre.lab2.gui;
+
+import java.time.Duration;
+
+/**
+ * <p>Limites imposées à une résolution bornée : nombre maximal de sommets traités et échéance.</p>
+ *
+ * <p>L'échéance est exprimée dans la base de temps de {@link System#nanoTime()}. Les solveurs ne la consultent
+ * qu'à intervalles réguliers de traitements, elle peut donc être dépassée de quelques microsecondes.</p>
+ *
+ * @param maxExpansions Nombre maximal de sommets traités.
+ * @param deadline Echéance absolue selon {@link System#nanoTime()}, ignorée si {@code hasDeadline} est faux.
+ * @param hasDeadline {@code true} si l'échéance doit être respectée.
+ *
+ * @see BoundedMazeSolver
+ */
+public record SolveBudget(long maxExpansions, long deadline, boolean hasDeadline) {
+  private static final SolveBudget UNLIMITED = new SolveBudget(Long.MAX_VALUE, 0, false);
+
+  /**
+   * @throws IllegalArgumentException si {@code maxExpansions} est négatif.
+   */
+  public SolveBudget {
+    if (maxExpansions < 0)
+      throw new IllegalArgumentException("Max expansions: " + maxExpansions + " must be non negative");
+  }
+
+  /**
+   * @return Un budget sans aucune limite.
+   */
+  public static SolveBudget unlimited() {
+    return UNLIMITED;
+  }
+
+  /**
+   * @param maxExpansions Nombre maximal de sommets traités.
+   * @return Un budget limité en nombre de sommets traités.
+   * @throws IllegalArgumentException si {@code maxExpansions} est négatif.
+   */
+  public static SolveBudget expansions(long maxExpansions) {
+    return new SolveBudget(maxExpansions, 0, false);
+  }
+
+  /**
+   * @param timeout Durée maximale de la résolution, à partir de maintenant.
+   * @return Un budget limité dans le temps.
+   * @throws NullPointerException si {@code timeout} est {@code null}.
+   */
+  public static SolveBudget within(Duration timeout) {
+    return new SolveBudget(Long.MAX_VALUE, System.nanoTime() + timeout.toNanos(), true);
+  }
+
+  /**
+   * @param maxExpansions Nombre maximal de sommets traités.
+   * @return Un budget de même échéance limité en nombre de sommets traités.
+   * @throws IllegalArgumentException si {@code maxExpansions} est négatif.
+   */
+  public SolveBudget withExpansions(long maxExpansions) {
+    return new SolveBudget(maxExpansions, deadline, hasDeadline);
+  }
+
+  /**
+   * @return {@code true} si l'échéance existe et est dépassée.
+   */
+  public boolean isExpired() {
+    return hasDeadline && System.nanoTime() - deadline >= 0;
+  }
+}
@@ -0,0 +1,49 @@
+package gre.lab2.gui;
+
+import java.util.List;
+
+/**
+ * Résultat d'une résolution bornée.
+ *
+ * @param status Issue de la résolution.
+ * @param path Chemin de la source à la destination (toutes deux incluses) si {@code status} vaut
+ *             {@link Status#FOUND}, sinon une liste vide.
+ * @param frontier Sommets découverts mais pas encore traités à l'arrêt de la résolution, dans leur ordre de
+ *                 traitement. Vide si {@code status} vaut {@link Status#FOUND} ou {@link Status#UNREACHABLE}.
+ * @param expanded Nombre de sommets traités.
+ *
+ * @see BoundedMazeSolver
+ */
+public record SolveResult(Status status, List<Integer> path, int[] frontier, long expanded) {
+  /**
+   * Issue d'une résolution bornée.
+   */
+  public enum Status {
+    /**
+     * Un chemin a été trouvé.
+     */
+    FOUND,
+
+    /**
+     * La destination n'est pas atteignable depuis la source.
+     */
+    UNREACHABLE,
+
+    /**
+     * Le budget (nombre de traitements ou échéance) a été épuisé avant la fin.
+     */
+    EXHAUSTED,
+
+    /**
+     * Le thread de résolution a été interrompu.
+     */
+    CANCELLED
+  }
+
+  /**
+   * @return {@code true} si un chemin a été trouvé.
+   */
+  public boolean isFound() {
+    return status == Status.FOUND;
+  }
+}
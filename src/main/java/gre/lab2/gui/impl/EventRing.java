@@ -0,0 +1,79 @@
+package gre.lab2.gui.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>File circulaire bornée et sans verrou d'événements encodés sur un {@code long}, pour un unique producteur et
+ * un unique consommateur.</p>
+ *
+ * <p>Les indices de lecture et d'écriture croissent indéfiniment, leur différence donne le remplissage.</p>
+ */
+final class EventRing {
+  private final long[] events;
+  private final int mask;
+
+  /** Prochain indice à lire, modifié par le consommateur uniquement */
+  private final AtomicLong head = new AtomicLong();
+
+  /** Prochain indice à écrire, modifié par le producteur uniquement */
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * @param capacity Capacité, arrondie à la puissance de 2 supérieure.
+   */
+  EventRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    this.events = new long[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * Ajoute un événement si la file contient moins de {@code limit} éléments. Producteur uniquement.
+   *
+   * @param event Evénement encodé.
+   * @param limit Remplissage maximal toléré, borné par la capacité.
+   * @return {@code false} si l'événement n'a pas pu être ajouté.
+   */
+  boolean offer(long event, int limit) {
+    long t = tail.get();
+    if (t - head.get() >= Math.min(limit, events.length))
+      return false;
+
+    events[(int) t & mask] = event;
+    // Publication ordonnée : l'événement est visible avant le nouvel indice
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Retire et transmet au plus {@code max} événements. Consommateur uniquement.
+   *
+   * @param consumer Destinataire des événements.
+   * @param max Nombre maximal d'événements à retirer.
+   * @return Le nombre d'événements retirés.
+   */
+  int drain(LongConsumer consumer, int max) {
+    long h = head.get();
+    int count = (int) Math.min(tail.get() - h, max);
+    for (int i = 0; i < count; ++i)
+      consumer.accept(events[(int) (h + i) & mask]);
+
+    head.lazySet(h + count);
+    return count;
+  }
+
+  /**
+   * Oublie tous les événements en attente. Consommateur uniquement.
+   */
+  void clear() {
+    head.lazySet(tail.get());
+  }
+
+  /**
+   * @return Le nombre d'événements en attente.
+   */
+  int size() {
+    return (int) (tail.get() - head.get());
+  }
+}
@@ -1,9 +1,18 @@
 package gre.lab2.gui.impl;
 
+import gre.lab2.graph.Graph;
 import gre.lab2.graph.GridGraph;
+import gre.lab2.graph.VertexLabelling;
 import gre.lab2.gui.InstanceProvider;
+import gre.lab2.gui.MazeBuilder;
 import gre.lab2.gui.MazeGenerator;
+import gre.lab2.gui.MazeMetrics;
 import gre.lab2.gui.MazeSolver;
+import gre.lab2.gui.Progression;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.Observable;
 import javafx.fxml.FXML;
@@ -12,22 +21,42 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.util.Duration;
 
 import java.net.URL;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.*;
 
 public final class MainViewController implements Initializable {
+  // En dessous, les cases sont trop petites pour leurs murs et le rendu est agrégé
+  private static final double MIN_DETAILED_ZOOM = 3;
+  private static final double MIN_ZOOM = 1.0 / 4096;
+  private static final double MAX_ZOOM = 256;
+  // Délai sans redimensionnement après lequel le labyrinthe est recalculé
+  private static final Duration RESIZE_SETTLE = Duration.millis(150);
+  // Délai sans changement de taille de grille après lequel le labyrinthe suivant est préparé
+  private static final Duration PREFETCH_SETTLE = Duration.millis(300);
+  // Période de rafraîchissement des métriques affichées
+  private static final Duration METRICS_PERIOD = Duration.millis(250);
+
   @FXML private TitledPane generationGroup;
   @FXML private Slider gridSizeSlider;
   @FXML private CheckBox animateGen;
+  @FXML private CheckBox prefetchGen;
   @FXML private TitledPane solveGroup;
   @FXML private Pane playPauseGroup;
   @FXML private Slider delaySlider;
+  @FXML private Label metricsLabel;
   @FXML private Button pauseBtn;
   @FXML private Pane canvasArea;
   @FXML private Canvas canvas;
@@ -43,11 +72,42 @@ public final class MainViewController implements Initializable {
   private int source;
   private int destination;
   private MazeSolver solver;
+  // Moniteur de la dernière résolution, dont le total est affiché avec les métriques
+  private SolverMonitor monitor;
+  // Pixels par case
+  private double zoom = 1;
+  private double panX;
+  private double panY;
+  // Vrai tant que le labyrinthe entier est ajusté à la zone d'affichage (ni zoom ni déplacement manuel)
+  private boolean fitted;
+  private double fittedSide;
+  private final PauseTransition resizeSettle = new PauseTransition(RESIZE_SETTLE);
+  // Labyrinthe suivant, généré sans animation en arrière-plan pendant que le courant est affiché
+  private Future<ObservableMaze> prefetched;
+  private int prefetchedSide;
+  private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "maze-prefetch");
+    thread.setDaemon(true);
+    // Ne doit pas ralentir l'animation en cours
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+  private final PauseTransition prefetchSettle = new PauseTransition(PREFETCH_SETTLE);
 
   @Override
   public void initialize(URL url, ResourceBundle resourceBundle) {
     canvasArea.heightProperty().addListener(this::onResize);
     canvasArea.widthProperty().addListener(this::onResize);
+    resizeSettle.setOnFinished(e -> onResizeSettled());
+    gridSizeSlider.valueProperty().addListener(this::onGridSizeChanged);
+    prefetchGen.selectedProperty().addListener(this::onPrefetchToggled);
+    prefetchSettle.setOnFinished(e -> prefetch());
+
+    // Lecture de quelques compteurs répartis, négligeable même en continu
+    Timeline metricsRefresh = new Timeline(new KeyFrame(METRICS_PERIOD, e -> refreshMetrics()));
+    metricsRefresh.setCycleCount(Animation.INDEFINITE);
+    metricsRefresh.play();
+    refreshMetrics();
     onSrcTool();
   }
 
@@ -55,26 +115,36 @@ public final class MainViewController implements Initializable {
   private void onGenerate() {
     if (instanceProvider == null) return;
 
+    int side = (int) gridSizeSlider.getValue();
+    ObservableMaze next = takePrefetched(side);
+    if (next != null) {
+      // Échange immédiat avec le labyrinthe préparé en arrière-plan
+      maze = next;
+      source = 0;
+      destination = maze.nbVertices() - 1;
+      showMaze();
+      solveGroup.setDisable(false);
+      overlay.setDisable(false);
+      overlay.setVisible(true);
+      repaintOverlay();
+      prefetch();
+      return;
+    }
+
     generationGroup.setDisable(true);
     solveGroup.setDisable(true);
     overlay.setVisible(false);
     playPauseGroup.setDisable(false);
     canceled = false;
 
-    int side = (int) gridSizeSlider.getValue();
-    GridGraph topology = new GridGraph(side);
-    GridGraph.bindAll(topology);
-    maze = new ObservableMaze(topology, new GridGraph(side));
-
-    painter = new MazePainter(maze, canvas.getGraphicsContext2D())
-          .setWallColor(StaticConfig.wallColor())
-          .setCellColorF(v -> StaticConfig.generatorColor(maze, v));
-    repaintMaze();
-    repaintOverlay();
+    maze = newMaze(side);
+    showMaze();
 
     MazeAnimation animation = newAnimation();
-    if (animateGen.isSelected())
+    if (animateGen.isSelected()) {
       maze.subscribe(animation);
+      animation.start();
+    }
 
     worker = new Thread(() -> {
       try {
@@ -82,17 +152,22 @@ public final class MainViewController implements Initializable {
         builder.generate(maze, StaticConfig.startPoint(maze));
       } catch (CanceledAnimationException ignored) {
       } finally {
+        animation.finish();
         maze.unsubscribe(animation);
         source = 0;
         destination = maze.nbVertices() - 1;
 
         Platform.runLater(() -> {
+          animation.stop();
+
           // Désactivation/activation des éléments de l'UI commence à devenir confuse, pattern état ?
           generationGroup.setDisable(false);
           playPauseGroup.setDisable(true);
 
-          if (!animateGen.isSelected())
+          if (!animateGen.isSelected()) {
+            painter.invalidate();
             repaintMaze();
+          }
 
           if (!canceled) {
             solveGroup.setDisable(false);
@@ -100,6 +175,7 @@ public final class MainViewController implements Initializable {
             overlay.setVisible(true);
             repaintOverlay();
           }
+          prefetch();
         });
       }
     });
@@ -117,9 +193,11 @@ public final class MainViewController implements Initializable {
 
     MazeAnimation animation = newAnimation();
     maze.subscribe(animation);
+    animation.start();
 
     SolverMonitor monitor = new SolverMonitor(maze.nbVertices(), animation);
-    painter.setCellColorF(v -> StaticConfig.solverCellColor(maze, monitor, v));
+    this.monitor = monitor;
+    painter.setCellArgbF(v -> StaticConfig.solverCellColor(maze, monitor, v));
 
     // Efface la solution précédente
     repaintMaze();
@@ -132,8 +210,10 @@ public final class MainViewController implements Initializable {
         }
       } catch (CanceledAnimationException ignored) {
       } finally {
+        animation.finish();
         maze.unsubscribe(animation);
         Platform.runLater(() -> {
+          animation.stop();
           generationGroup.setDisable(false);
           playPauseGroup.setDisable(true);
           solveGroup.setDisable(false);
@@ -161,15 +241,46 @@ public final class MainViewController implements Initializable {
 
   @FXML
   private void onSelectVertex(MouseEvent event) {
-    // Très approximatif dans les bords droit et inférieur
-    int l = painter.getCellSide() + 2 * painter.getWallThickness();
-    int row = (int) event.getY() / l;
-    int col = (int) event.getX() / l;
+    // Fin d'un déplacement de la vue, pas une sélection
+    if (painter == null || !event.isStillSincePress()) return;
 
-    // D'où cette vérification
-    if (row < 0 || col < 0 || row >= maze.width() || col >= maze.height()) return;
+    int v = painter.vertexAt(event.getX(), event.getY());
+    if (v < 0) return;
 
-    vertexSelector.accept(row * maze.width() + col);
+    vertexSelector.accept(v);
+    repaintOverlay();
+  }
+
+  @FXML
+  private void onPanStart(MouseEvent event) {
+    panX = event.getX();
+    panY = event.getY();
+  }
+
+  @FXML
+  private void onPan(MouseEvent event) {
+    if (painter == null) return;
+
+    fitted = false;
+    painter.setView(painter.getViewX() - (int) (event.getX() - panX), painter.getViewY() - (int) (event.getY() - panY));
+    panX = event.getX();
+    panY = event.getY();
+    painter.repaint();
+    repaintOverlay();
+  }
+
+  @FXML
+  private void onZoom(ScrollEvent event) {
+    if (painter == null) return;
+
+    // Le point sous le curseur reste fixe
+    double col = painter.columnAt(event.getX());
+    double row = painter.rowAt(event.getY());
+    fitted = false;
+    zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * Math.pow(1.1, event.getDeltaY() / 40)));
+    applyZoom();
+    painter.anchor(col, row, event.getX(), event.getY());
+    painter.repaint();
     repaintOverlay();
   }
 
@@ -185,6 +296,18 @@ public final class MainViewController implements Initializable {
     worker.interrupt();
   }
 
+  private void refreshMetrics() {
+    MazeMetrics metrics = MazeMetrics.global();
+    metricsLabel.setText(String.format(
+          "Traitements : %,d%nSommets développés : %,d%nArêtes parcourues : %,d%nFile max : %,d%nUnions : %,d (find : %.2f)",
+          monitor == null ? 0 : monitor.total(),
+          metrics.getVerticesExpanded(),
+          metrics.getEdgesScanned(),
+          metrics.getQueueHighWaterMark(),
+          metrics.getUnions(),
+          metrics.getMeanFindPathLength()));
+  }
+
   private void setPause(boolean paused) {
     if (paused) {
       pause = new CompletableFuture<>();
@@ -196,9 +319,115 @@ public final class MainViewController implements Initializable {
     }
   }
 
+  private void onGridSizeChanged(Observable ignored) {
+    // Le labyrinthe préparé n'a plus la bonne taille, le suivant est lancé une fois la sélection terminée
+    discardPrefetched();
+    prefetchSettle.playFromStart();
+  }
+
+  private void onPrefetchToggled(Observable ignored) {
+    if (prefetchGen.isSelected())
+      prefetch();
+    else
+      discardPrefetched();
+  }
+
+  /**
+   * Lance en arrière-plan la génération d'un labyrinthe de la taille sélectionnée, sans abonné ni animation,
+   * si le préchargement est actif et qu'aucun n'est déjà en préparation.
+   */
+  private void prefetch() {
+    if (instanceProvider == null || !prefetchGen.isSelected() || prefetched != null) return;
+
+    int side = (int) gridSizeSlider.getValue();
+    prefetchedSide = side;
+    prefetched = prefetcher.submit(() -> {
+      ObservableMaze next = newMaze(side);
+      // Sans abonné, seule l'interruption par discardPrefetched() peut arrêter la génération
+      instanceProvider.generator().generate(new InterruptibleBuilder(next), StaticConfig.startPoint(next));
+      return next;
+    });
+  }
+
+  /**
+   * Récupère le labyrinthe préparé en arrière-plan s'il est terminé et de la bonne taille. Une préparation encore
+   * en cours est conservée pour la génération suivante.
+   *
+   * @param side Taille de la grille souhaitée.
+   * @return Le labyrinthe préparé ou {@code null} s'il n'est pas disponible.
+   */
+  private ObservableMaze takePrefetched(int side) {
+    if (prefetched == null) return null;
+    if (prefetchedSide != side) {
+      discardPrefetched();
+      return null;
+    }
+    if (!prefetched.isDone()) return null;
+
+    try {
+      return prefetched.get();
+    } catch (InterruptedException | ExecutionException e) {
+      // Échec de la génération en arrière-plan, le labyrinthe sera généré normalement
+      return null;
+    } finally {
+      prefetched = null;
+    }
+  }
+
+  private void discardPrefetched() {
+    if (prefetched == null) return;
+
+    prefetched.cancel(true);
+    prefetched = null;
+  }
+
   private void onResize(Observable ignored) {
     if (maze == null) return;
 
+    // Affichage immédiat de la dernière image, recalculée une fois le redimensionnement terminé
+    double scale = fitted ? Math.min(canvasArea.getWidth(), canvasArea.getHeight()) / fittedSide : 1;
+    canvas.setWidth(canvasArea.getWidth());
+    canvas.setHeight(canvasArea.getHeight());
+    painter.drawCached(scale);
+    resizeSettle.playFromStart();
+  }
+
+  private void onResizeSettled() {
+    if (maze == null) return;
+
+    if (fitted)
+      fitMaze();
+    repaintMaze();
+    repaintOverlay();
+  }
+
+  /**
+   * Ajuste le zoom pour que le labyrinthe entier soit visible.
+   */
+  private void fitMaze() {
+    fittedSide = Math.min(canvasArea.getWidth(), canvasArea.getHeight());
+    zoom = fittedSide / maze.width();
+    fitted = true;
+    applyZoom();
+    painter.setView(0, 0);
+  }
+
+  private static ObservableMaze newMaze(int side) {
+    GridGraph topology = new GridGraph(side);
+    GridGraph.bindAll(topology);
+    return new ObservableMaze(topology, new GridGraph(side));
+  }
+
+  /**
+   * Affiche le labyrinthe courant en entier, colorié selon la progression de sa génération.
+   */
+  private void showMaze() {
+    // Abandonne la construction de la pyramide de l'ancien labyrinthe
+    if (painter != null) painter.invalidate();
+    painter = new MazePainter(maze, canvas.getGraphicsContext2D())
+          .setWallColor(StaticConfig.wallColor())
+          .setCellArgbF(v -> StaticConfig.generatorColor(maze, v));
+    fitMaze();
     repaintMaze();
     repaintOverlay();
   }
@@ -215,35 +444,39 @@ public final class MainViewController implements Initializable {
   }
 
   private void paintSelection(int vertex, Color color) {
-    int x = painter.cellOffset(vertex % maze.width());
-    int y = painter.cellOffset(vertex / maze.height());
+    // Taille minimale pour rester visible lorsque le rendu est agrégé
+    double side = Math.max(painter.getScreenCellSide(), 6);
+    double offset = (side - painter.getScreenCellSide()) / 2;
+    double x = painter.screenX(vertex) - offset;
+    double y = painter.screenY(vertex) - offset;
 
     GraphicsContext context = overlay.getGraphicsContext2D();
 
     context.setFill(color);
-    context.fillOval(x, y, painter.getCellSide(), painter.getCellSide());
+    context.fillOval(x, y, side, side);
   }
 
   private void repaintMaze() {
-    int side = (int) Math.min(canvasArea.getWidth(), canvasArea.getHeight());
-
-    // Permet de déterminer une taille de mur pertinente sans connaître à l'avance la taille réelle de la cellule
-    int approximateCellSide = side / maze.width();
-    int wallThickness = StaticConfig.wallThickness(approximateCellSide);
-    int doubleThickness = 2 * wallThickness;
-
-    // Garanti une taille min de 1 pour éviter une image noire
-    int cellSide = Math.max(1, (side - doubleThickness) / maze.width() - doubleThickness);
-    side = (cellSide + doubleThickness) * maze.width() + doubleThickness;
-
-    canvas.setWidth(side);
-    canvas.setHeight(side);
-
-    painter.setWallThickness(wallThickness)
-          .setCellSide(cellSide);
+    // Le canvas couvre la zone disponible, seule la partie visible du labyrinthe est dessinée
+    canvas.setWidth(canvasArea.getWidth());
+    canvas.setHeight(canvasArea.getHeight());
     painter.repaint();
   }
 
+  private void applyZoom() {
+    if (zoom >= MIN_DETAILED_ZOOM) {
+      // Permet de déterminer une taille de mur pertinente sans connaître à l'avance la taille réelle de la cellule
+      int wallThickness = StaticConfig.wallThickness((int) zoom);
+      int cellSide = Math.max(1, (int) Math.round(zoom) - 2 * wallThickness);
+      painter.setWallThickness(wallThickness)
+            .setCellSide(cellSide);
+    } else {
+      // Cases de taille fractionnaire, agrégées en blocs sous un pixel
+      painter.setScale(zoom)
+            .setCellSide(0);
+    }
+  }
+
   public void setInstanceProvider(InstanceProvider instanceProvider) {
     this.instanceProvider = instanceProvider;
     solver = instanceProvider.solver();
@@ -252,10 +485,47 @@ public final class MainViewController implements Initializable {
   private MazeAnimation newAnimation() {
     return new MazeAnimation(painter,
             () -> pause,
-            // Fonction à décroissance géométrique fournissant un résultat dans [1;slider.max]
+            // Fonction à croissance géométrique fournissant un débit dans [10;10^6] événements par seconde
             // Permet de lisser l'accélération de l'animation lors de la sélection de faibles valeurs
-            () -> (int) Math.pow(
-                    delaySlider.getMax(),
-                    (delaySlider.getMax() - delaySlider.getValue()) / delaySlider.getMax()));
+            () -> (int) Math.pow(10, 1 + 5 * delaySlider.getValue() / delaySlider.getMax()));
+  }
+
+  /**
+   * Builder interrompant la génération dès que le thread est interrompu, à la prochaine modification d'un mur :
+   * les générateurs n'ont pas à tester l'interruption eux-mêmes.
+   */
+  private static final class InterruptibleBuilder implements MazeBuilder {
+    private final MazeBuilder delegate;
+
+    private InterruptibleBuilder(MazeBuilder delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Graph topology() {
+      return delegate.topology();
+    }
+
+    @Override
+    public VertexLabelling<Progression> progressions() {
+      return delegate.progressions();
+    }
+
+    @Override
+    public void addWall(int u, int v) {
+      checkInterrupted();
+      delegate.addWall(u, v);
+    }
+
+    @Override
+    public void removeWall(int u, int v) {
+      checkInterrupted();
+      delegate.removeWall(u, v);
+    }
+
+    private static void checkInterrupted() {
+      if (Thread.interrupted())
+        throw new CancellationException("Prefetched generation discarded");
+    }
   }
 }
\ No newline at end of file
@@ -1,27 +1,97 @@
 package gre.lab2.gui.impl;
 
 import gre.lab2.graph.GraphObserver;
-import javafx.application.Platform;
+import javafx.animation.AnimationTimer;
 
+import java.util.BitSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
+/**
+ * <p>Animation d'un labyrinthe cadencée par les impulsions de JavaFX.</p>
+ *
+ * <p>Le thread de travail dépose les événements dans une {@link EventRing} et un {@link AnimationTimer} en retire
+ * à chaque image un nombre dépendant du débit cible (événements par seconde). Les cases et murs modifiés plusieurs
+ * fois dans une même image ne sont dessinés qu'une fois.</p>
+ *
+ * <p>Le thread de travail est bloqué tant que son avance sur l'affichage dépasse deux images, ce qui conserve le
+ * rythme de l'algorithme observé.</p>
+ */
 public final class MazeAnimation implements GraphObserver {
+  private static final int CAPACITY = 1 << 16;
+  private static final int MIN_LEAD = 64;
+  private static final long PARK_NANOS = 200_000;
+
+  private static final long VERTEX = 0;
+  private static final long EDGE = 1L << 62;
+
   private final MazePainter painter;
   private final Supplier<CompletableFuture<Void>> pauseControl;
-  private final IntSupplier dynamicDelay;
+  private final IntSupplier eventsPerSecond;
+  private final EventRing events = new EventRing(CAPACITY);
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      onPulse(now);
+    }
+  };
+
+  private volatile boolean canceled;
 
-  public MazeAnimation(MazePainter painter, Supplier<CompletableFuture<Void>> pauseControl, IntSupplier dynamicDelay) {
+  // Etat du thread JavaFX
+  private final BitSet dirtyCells = new BitSet();
+  private final BitSet dirtyWalls = new BitSet();
+  private long lastPulse = -1;
+  private double credit;
+
+  /**
+   * @param painter Painter du labyrinthe animé.
+   * @param pauseControl Future courante de pause, complétée lorsque l'animation doit se poursuivre.
+   * @param eventsPerSecond Débit cible de l'animation, consulté à chaque image.
+   */
+  public MazeAnimation(MazePainter painter, Supplier<CompletableFuture<Void>> pauseControl,
+                       IntSupplier eventsPerSecond) {
     this.painter = painter;
     this.pauseControl = pauseControl;
-    this.dynamicDelay = dynamicDelay;
+    this.eventsPerSecond = eventsPerSecond;
+  }
+
+  /**
+   * Démarre l'affichage des événements. Doit être appelé depuis le thread JavaFX.
+   */
+  public void start() {
+    lastPulse = -1;
+    timer.start();
+  }
+
+  /**
+   * Arrête l'affichage des événements. Doit être appelé depuis le thread JavaFX.
+   */
+  public void stop() {
+    timer.stop();
+  }
+
+  /**
+   * <p>Attend depuis le thread de travail que tous les événements aient été affichés.</p>
+   *
+   * <p>Retourne immédiatement si l'animation a été annulée ou si le thread est interrompu, auquel cas les
+   * événements restants sont abandonnés.</p>
+   */
+  public void finish() {
+    while (!canceled && events.size() > 0) {
+      if (Thread.currentThread().isInterrupted()) {
+        canceled = true;
+        return;
+      }
+      LockSupport.parkNanos(PARK_NANOS);
+    }
   }
 
   @Override
   public void onEdgeAdded(int u, int v) {
-    Platform.runLater(() -> painter.drawWall(u, v));
-    pause();
+    publish(EDGE | (long) u << 31 | v);
   }
 
   @Override
@@ -31,16 +101,69 @@ public final class MazeAnimation implements GraphObserver {
 
   @Override
   public void onVertexChanged(int v) {
-    Platform.runLater(() -> painter.drawCell(v));
-    pause();
+    publish(VERTEX | v);
   }
-  private void pause() {
+
+  private void publish(long event) {
     pauseControl.get().join();
 
-    try {
-      Thread.sleep(dynamicDelay.getAsInt());
-    } catch (InterruptedException e) {
+    // Avance tolérée : deux images au débit courant
+    int lead = Math.max(MIN_LEAD, eventsPerSecond.getAsInt() / 30);
+    while (!events.offer(event, lead)) {
+      if (Thread.currentThread().isInterrupted()) {
+        canceled = true;
+        throw new CanceledAnimationException();
+      }
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+
+    if (Thread.currentThread().isInterrupted()) {
+      canceled = true;
       throw new CanceledAnimationException();
     }
   }
+
+  private void onPulse(long now) {
+    if (canceled) {
+      events.clear();
+      timer.stop();
+      return;
+    }
+
+    if (lastPulse < 0 || !pauseControl.get().isDone()) {
+      lastPulse = now;
+      return;
+    }
+
+    int rate = Math.max(1, eventsPerSecond.getAsInt());
+    // Plafonne le crédit à un dixième de seconde pour éviter une rafale après un blocage
+    credit = Math.min(credit + (now - lastPulse) * 1e-9 * rate, Math.max(1, rate / 10.0));
+    lastPulse = now;
+
+    int drained = events.drain(this::markDirty, (int) credit);
+    credit = drained < (int) credit ? credit % 1 : credit - drained;
+
+    for (int v = dirtyCells.nextSetBit(0); v >= 0; v = dirtyCells.nextSetBit(v + 1))
+      painter.drawCell(v);
+
+    int width = painter.getMaze().width();
+    for (int key = dirtyWalls.nextSetBit(0); key >= 0; key = dirtyWalls.nextSetBit(key + 1)) {
+      int u = key >>> 1;
+      painter.drawWall(u, u + ((key & 1) == 0 ? 1 : width));
+    }
+
+    dirtyCells.clear();
+    dirtyWalls.clear();
+  }
+
+  private void markDirty(long event) {
+    if ((event & EDGE) == 0) {
+      dirtyCells.set((int) event);
+    } else {
+      int u = (int) (event >>> 31 & Integer.MAX_VALUE);
+      int v = (int) (event & Integer.MAX_VALUE);
+      // Clé unique par mur : extrémité minimale et orientation
+      dirtyWalls.set(2 * Math.min(u, v) + (Math.abs(u - v) == 1 && painter.getMaze().width() > 1 ? 0 : 1));
+    }
+  }
 }
@@ -1,32 +1,110 @@
 package gre.lab2.gui.impl;
 
 import gre.lab2.graph.GridGraph2D;
+import javafx.application.Platform;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 
+/**
+ * <p>Dessine un labyrinthe sur un canvas, au travers d'une fenêtre (viewport) dont l'origine est exprimée en
+ * pixels du labyrinthe entier. Seules les cases visibles sont dessinées.</p>
+ *
+ * <p>Deux modes de rendu :</p>
+ * <ul>
+ *   <li>détaillé ({@code cellSide > 0}) : chaque case mesure {@code cellSide} pixels entourés de demi-murs ;</li>
+ *   <li>agrégé ({@code cellSide == 0}) : chaque case mesure {@code scale} pixels, fractionnaire. Une case a pour
+ *   couleur la moyenne de sa couleur et de ses passages droite/bas. En dessous d'un pixel par case, l'image est lue
+ *   dans une pyramide : le niveau <i>k</i> donne la couleur moyenne de chaque bloc de 2<sup>k</sup> x 2<sup>k</sup>
+ *   cases, calculée à partir des 4 blocs du niveau précédent, et le niveau affiché est le plus fin dont les blocs
+ *   couvrent au moins un pixel.</li>
+ * </ul>
+ *
+ * <p>Les niveaux sont construits à la demande, une seule fois : zoomer ne fait que changer de niveau. La
+ * construction a lieu en arrière-plan, le niveau construit le plus grossier étant affiché en attendant, puis
+ * l'image est redessinée une fois les niveaux installés. Chaque {@link #drawCell(int)} ou
+ * {@link #drawWall(int, int)} met à jour les blocs contenant la case, un par niveau construit, et les niveaux ne
+ * sont reconstruits qu'après {@link #invalidate()}.</p>
+ *
+ * <p>Toutes les méthodes publiques doivent être appelées depuis le thread JavaFX.</p>
+ *
+ * <p>La dernière image complète est conservée : {@link #repaint()} ne la recalcule que si le labyrinthe a été
+ * modifié ou si la géométrie (fenêtre, zoom, taille du canvas) a changé.</p>
+ */
 public final class MazePainter {
 
+  // Construction des niveaux de la pyramide, partagée par tous les painters
+  private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "maze-pyramid");
+    thread.setDaemon(true);
+    // Ne doit pas ralentir l'animation en cours
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
   private final GridGraph2D maze;
   private final GraphicsContext context;
-  private Function<Integer, Color> cellColorF = v -> Color.WHITE;
+  private IntUnaryOperator cellArgbF = v -> 0xFFFFFFFF;
 
   // Techniquement épaisseur d'un demi mur
   private int wallThickness = 1;
   private int cellSide = 100;
   private Color wallColor = Color.BLACK;
+  private int wallArgb = argb(Color.BLACK);
+
+  // Origine de la fenêtre visible, en pixels du labyrinthe
+  private int viewX;
+  private int viewY;
+
+  // Côté d'une case à l'écran en mode agrégé, en pixels
+  private double scale = 1;
+
+  // Pyramide : levels[k] donne la couleur ARGB des blocs de 2^k x 2^k cases, null si pas encore construit.
+  // Le niveau 0 n'est jamais stocké, les cases étant lues directement.
+  private final int[][] levels;
+
+  // Dernier niveau construit, les niveaux 1 à builtLevel le sont tous
+  private int builtLevel;
+
+  // Construction en arrière-plan en cours, null sinon, et numéro de la dernière lancée ou annulée
+  private Future<?> building;
+  private int builds;
+
+  // Cases modifiées depuis le lancement de la construction, dont les blocs sont recalculés à son installation
+  private final BitSet changedCells = new BitSet();
+
+  // Dernière image complète et géométrie avec laquelle elle a été calculée
+  private WritableImage image;
+  private boolean stale = true;
+  private double[] imageGeometry;
 
   public MazePainter(GridGraph2D maze, GraphicsContext context) {
     this.maze = maze;
     this.context = context;
+    this.levels = new int[32 - Integer.numberOfLeadingZeros(Math.max(maze.width(), maze.height()) - 1) + 1][];
   }
 
   public void drawWall(int u, int v) {
-    if (! maze.areAdjacent(u, v)) {
+    // Le passage compte dans l'échantillon de la case en haut ou à gauche
+    updateBlocks(Math.min(u, v));
+
+    if (isAggregated()) {
+      drawBlock(Math.min(u, v));
+    } else if (! maze.areAdjacent(u, v)) {
       drawWall(u, v, wallColor, wallColor);
     } else {
-      drawWall(u, v, cellColorF.apply(u), cellColorF.apply(v));
+      drawWall(u, v, color(cellArgbF.applyAsInt(u)), color(cellArgbF.applyAsInt(v)));
     }
   }
 
@@ -59,35 +137,354 @@ public final class MazePainter {
   }
 
   private void drawRect(int x, int y, int width, int height, Color color) {
+    stale = true;
     context.setFill(color);
-    context.fillRect(x, y, width, height);
+    context.fillRect(x - viewX, y - viewY, width, height);
   }
 
   public void drawCell(int v) {
-    drawRect(cellOffset(col(v)), cellOffset(row(v)), cellSide, cellSide, cellColorF.apply(v));
+    updateBlocks(v);
+    if (isAggregated()) {
+      drawBlock(v);
+      return;
+    }
+
+    // Case hors de la fenêtre, y compris ses murs
+    int x = cellOffset(col(v)) - viewX;
+    int y = cellOffset(row(v)) - viewY;
+    int margin = 2 * wallThickness;
+    if (x + cellSide + margin < 0 || y + cellSide + margin < 0
+          || x - margin > context.getCanvas().getWidth() || y - margin > context.getCanvas().getHeight())
+      return;
+
+    drawRect(cellOffset(col(v)), cellOffset(row(v)), cellSide, cellSide, color(cellArgbF.applyAsInt(v)));
 
     for(int u : maze.neighbors(v)) {
       drawWall(u, v);
     }
   }
 
+  /**
+   * Redessine toute la partie visible du labyrinthe. Les pixels sont calculés ligne par ligne dans une image,
+   * écrite en un seul appel sur le canvas, plutôt que d'émettre une commande de dessin par case et par demi-mur.
+   */
   public void repaint() {
-    // Arrière-plan
+    int width = (int) context.getCanvas().getWidth();
+    int height = (int) context.getCanvas().getHeight();
+    if (width <= 0 || height <= 0) return;
+
+    RepaintEvent event = new RepaintEvent();
+    event.begin();
+
+    if (image == null || image.getWidth() != width || image.getHeight() != height) {
+      image = new WritableImage(width, height);
+      stale = true;
+    }
+
+    double[] geometry = geometry();
+    if (stale || !Arrays.equals(geometry, imageGeometry)) {
+      if (isAggregated())
+        rasterizeBlocks(width, height);
+      else
+        rasterizeCells(width, height);
+
+      stale = false;
+      imageGeometry = geometry;
+      event.rasterized = true;
+    }
+
+    context.drawImage(image, 0, 0);
+
+    if (event.shouldCommit()) {
+      event.mazeWidth = maze.width();
+      event.mazeHeight = maze.height();
+      event.canvasWidth = width;
+      event.canvasHeight = height;
+      event.blockSize = getBlockSize();
+      event.commit();
+    }
+  }
+
+  /**
+   * Dessine la dernière image complète mise à l'échelle, sans la recalculer. Permet un affichage immédiat
+   * (approximatif) pendant un redimensionnement, avant un {@link #repaint()} une fois celui-ci terminé.
+   *
+   * @param scale Facteur d'échelle.
+   */
+  public void drawCached(double scale) {
     context.setFill(wallColor);
-    context.fillRect(0 ,0, context.getCanvas().getWidth(), context.getCanvas().getHeight());
-
-    // Cases et murs
-    for (int u = 0; u < maze.nbVertices(); ++u) {
-      drawCell(u);
-      for (int v : maze.neighbors(u)) {
-        if (u > v)
-          drawWall(u, v);
+    context.fillRect(0, 0, context.getCanvas().getWidth(), context.getCanvas().getHeight());
+    if (image != null)
+      context.drawImage(image, 0, 0, image.getWidth() * scale, image.getHeight() * scale);
+  }
+
+  /**
+   * Signale que le labyrinthe a été modifié sans passer par {@link #drawCell(int)} ou {@link #drawWall(int, int)},
+   * la pyramide doit être reconstruite au prochain {@link #repaint()} agrégé.
+   */
+  public void invalidate() {
+    if (building != null) building.cancel(true);
+    building = null;
+    ++builds;
+    changedCells.clear();
+    Arrays.fill(levels, null);
+    builtLevel = 0;
+    stale = true;
+  }
+
+  private void rasterizeCells(int width, int height) {
+    PixelWriter writer = image.getPixelWriter();
+    int[] line = new int[width];
+    IntBuffer buffer = IntBuffer.wrap(line);
+    int wall = argb(wallColor);
+    int pitch = cellSide + 2 * wallThickness;
+
+    // Cases visibles, murs inclus
+    int firstCol = Math.max(0, (viewX - 2 * wallThickness) / pitch);
+    int lastCol = Math.min(maze.width() - 1, (viewX + width) / pitch);
+    int firstRow = Math.max(0, (viewY - 2 * wallThickness) / pitch);
+    int lastRow = Math.min(maze.height() - 1, (viewY + height) / pitch);
+
+    int mazeWidth = maze.width();
+    int[] colors = new int[mazeWidth];
+    int[] nextColors = new int[mazeWidth];
+    boolean[] passages = new boolean[mazeWidth];
+
+    // Arrière-plan
+    Arrays.fill(line, wall);
+    writeLines(writer, buffer, 0, height, width, height);
+    if (firstRow > lastRow || firstCol > lastCol) return;
+
+    // La couleur de la colonne suivante sert au demi-mur droit de la dernière case visible
+    int lastColor = Math.min(lastCol + 1, mazeWidth - 1);
+    rowColors(firstRow, firstCol, lastColor, colors);
+
+    for (int row = firstRow; row <= lastRow; ++row) {
+      int first = row * mazeWidth;
+      int y = cellOffset(row) - viewY;
+
+      // Cases et demi-murs verticaux
+      Arrays.fill(line, wall);
+      for (int col = firstCol; col <= lastCol; ++col) {
+        int x = cellOffset(col) - viewX;
+        fill(line, x, cellSide, colors[col]);
+
+        if (col < mazeWidth - 1 && maze.areAdjacent(first + col, first + col + 1)) {
+          fill(line, x + cellSide, wallThickness, colors[col]);
+          fill(line, x + cellSide + wallThickness, wallThickness, colors[col + 1]);
+        }
+      }
+      writeLines(writer, buffer, y, cellSide, width, height);
+
+      if (row == maze.height() - 1) break;
+
+      // Demi-murs horizontaux, moitié supérieure puis inférieure
+      rowColors(row + 1, firstCol, lastColor, nextColors);
+      Arrays.fill(line, wall);
+      for (int col = firstCol; col <= lastCol; ++col) {
+        passages[col] = maze.areAdjacent(first + col, first + col + mazeWidth);
+        if (passages[col])
+          fill(line, cellOffset(col) - viewX, cellSide, colors[col]);
+      }
+      writeLines(writer, buffer, y + cellSide, wallThickness, width, height);
+
+      for (int col = firstCol; col <= lastCol; ++col) {
+        if (passages[col])
+          fill(line, cellOffset(col) - viewX, cellSide, nextColors[col]);
+      }
+      writeLines(writer, buffer, y + cellSide + wallThickness, wallThickness, width, height);
+
+      int[] tmp = colors;
+      colors = nextColors;
+      nextColors = tmp;
+    }
+  }
+
+  private void rasterizeBlocks(int width, int height) {
+    PixelWriter writer = image.getPixelWriter();
+    int[] line = new int[width];
+    IntBuffer buffer = IntBuffer.wrap(line);
+
+    // Niveau construit le plus proche en attendant les suivants, ses blocs pouvant être plus petits qu'un pixel
+    int wanted = level();
+    int level = Math.min(wanted, builtLevel);
+    if (level < wanted) buildLevels(wanted);
+    double side = blockSide(level);
+    int blocksWidth = levelWidth(level);
+    int blocksHeight = levelHeight(level);
+
+    // Bloc de chaque colonne de pixels, -1 hors du labyrinthe
+    int[] columns = new int[width];
+    for (int x = 0; x < width; ++x)
+      columns[x] = blockAt(x + viewX, side, blocksWidth);
+
+    int previous = -1;
+    for (int y = 0; y < height; ++y) {
+      int by = blockAt(y + viewY, side, blocksHeight);
+      if (by < 0) {
+        Arrays.fill(line, wallArgb);
+      } else if (by != previous) {
+        int first = by * blocksWidth;
+        for (int x = 0; x < width; ++x) {
+          if (columns[x] < 0)
+            line[x] = wallArgb;
+          else if (level > 0)
+            line[x] = levels[level][first + columns[x]];
+          // Au niveau 0, seules les cases sous un pixel sont lues, une fois par ligne
+          else if (x == 0 || columns[x] != columns[x - 1])
+            line[x] = cellSample(first + columns[x]);
+          else
+            line[x] = line[x - 1];
+        }
+      }
+      previous = by;
+      writeLines(writer, buffer, y, 1, width, height);
+    }
+  }
+
+  /**
+   * Dessine le bloc du niveau affiché contenant le sommet donné.
+   */
+  private void drawBlock(int v) {
+    int level = level();
+    if (level > builtLevel) return;
+
+    int bx = col(v) >> level;
+    int by = row(v) >> level;
+    int color = level == 0 ? cellSample(v) : levels[level][by * levelWidth(level) + bx];
+    double side = blockSide(level);
+    int x = (int) Math.ceil(bx * side);
+    int y = (int) Math.ceil(by * side);
+
+    stale = true;
+    context.setFill(color(color));
+    context.fillRect(x - viewX, y - viewY, (int) Math.ceil((bx + 1) * side) - x, (int) Math.ceil((by + 1) * side) - y);
+  }
+
+  /**
+   * Recalcule les blocs contenant le sommet donné, du niveau 1 au dernier niveau construit.
+   */
+  private void updateBlocks(int v) {
+    if (building != null) changedCells.set(v);
+
+    int bx = col(v);
+    int by = row(v);
+    for (int level = 1; level <= builtLevel; ++level) {
+      bx >>= 1;
+      by >>= 1;
+      levels[level][by * levelWidth(level) + bx] = blockSample(level, levels[level - 1], bx, by);
+    }
+  }
+
+  /**
+   * Lance en arrière-plan la construction des niveaux manquants jusqu'au niveau donné, chacun à partir du
+   * précédent, sauf si une construction est déjà en cours. Le labyrinthe peut être modifié pendant ce temps : les
+   * cases concernées sont notées par {@link #updateBlocks(int)} et leurs blocs recalculés à l'installation.
+   */
+  private void buildLevels(int level) {
+    if (building != null) return;
+
+    int from = builtLevel;
+    int[] base = levels[from];
+    int build = ++builds;
+    building = BUILDER.submit(() -> {
+      int[][] built = new int[level + 1][];
+      built[from] = base;
+      for (int next = from + 1; next <= level; ++next) {
+        built[next] = buildLevel(next, built[next - 1]);
+        // Annulée par invalidate()
+        if (built[next] == null) return;
+      }
+      Platform.runLater(() -> installLevels(build, from, built));
+    });
+  }
+
+  /**
+   * @return Les blocs du niveau donné, calculés à partir de ceux du niveau inférieur, ou null si le thread a été
+   * interrompu.
+   */
+  private int[] buildLevel(int level, int[] below) {
+    int blocksWidth = levelWidth(level);
+    int[] blocks = new int[blocksWidth * levelHeight(level)];
+    for (int by = 0; by < levelHeight(level); ++by) {
+      if (Thread.currentThread().isInterrupted()) return null;
+      for (int bx = 0; bx < blocksWidth; ++bx)
+        blocks[by * blocksWidth + bx] = blockSample(level, below, bx, by);
+    }
+    return blocks;
+  }
+
+  /**
+   * Installe les niveaux construits en arrière-plan, sauf si la pyramide a été invalidée entre-temps, recalcule
+   * les blocs des cases modifiées pendant la construction et redessine l'image.
+   */
+  private void installLevels(int build, int from, int[][] built) {
+    if (build != builds) return;
+
+    System.arraycopy(built, from + 1, levels, from + 1, built.length - from - 1);
+    builtLevel = built.length - 1;
+    building = null;
+    for (int v = changedCells.nextSetBit(0); v >= 0; v = changedCells.nextSetBit(v + 1))
+      updateBlocks(v);
+    changedCells.clear();
+
+    stale = true;
+    repaint();
+  }
+
+  /**
+   * Couleur moyenne d'un bloc, à partir des (au plus) 4 blocs du niveau inférieur qu'il recouvre, pondérés par
+   * leur nombre de cases.
+   *
+   * @param below Blocs du niveau inférieur, ignoré au niveau 1 dont les cases sont lues directement.
+   */
+  private int blockSample(int level, int[] below, int bx, int by) {
+    int belowLevel = level - 1;
+    int belowWidth = levelWidth(belowLevel);
+    long a = 0, r = 0, g = 0, b = 0;
+    long cells = 0;
+
+    for (int y = 2 * by; y < Math.min(2 * by + 2, levelHeight(belowLevel)); ++y) {
+      for (int x = 2 * bx; x < Math.min(2 * bx + 2, belowWidth); ++x) {
+        int color = belowLevel == 0 ? cellSample(y * belowWidth + x) : below[y * belowWidth + x];
+        long weight = (long) Math.min(1 << belowLevel, maze.width() - (x << belowLevel))
+              * Math.min(1 << belowLevel, maze.height() - (y << belowLevel));
+
+        a += weight * (color >>> 24);
+        r += weight * (color >> 16 & 0xFF);
+        g += weight * (color >> 8 & 0xFF);
+        b += weight * (color & 0xFF);
+        cells += weight;
       }
     }
+
+    long half = cells / 2;
+    return (int) ((a + half) / cells) << 24 | (int) ((r + half) / cells) << 16
+          | (int) ((g + half) / cells) << 8 | (int) ((b + half) / cells);
+  }
+
+  /**
+   * Couleur d'une case en mode agrégé : quatre échantillons, deux de sa couleur et un par passage droite/bas (sa
+   * couleur si ouvert, celle des murs sinon).
+   */
+  private int cellSample(int v) {
+    int mazeWidth = maze.width();
+    int cell = cellArgbF.applyAsInt(v);
+    int right = v % mazeWidth < mazeWidth - 1 && maze.areAdjacent(v, v + 1) ? cell : wallArgb;
+    int down = v < maze.nbVertices() - mazeWidth && maze.areAdjacent(v, v + mazeWidth) ? cell : wallArgb;
+
+    return (2 * (cell >>> 24) + (right >>> 24) + (down >>> 24) + 2) / 4 << 24
+          | (2 * (cell >> 16 & 0xFF) + (right >> 16 & 0xFF) + (down >> 16 & 0xFF) + 2) / 4 << 16
+          | (2 * (cell >> 8 & 0xFF) + (right >> 8 & 0xFF) + (down >> 8 & 0xFF) + 2) / 4 << 8
+          | (2 * (cell & 0xFF) + (right & 0xFF) + (down & 0xFF) + 2) / 4;
   }
 
   // Getters
 
+  public GridGraph2D getMaze() {
+    return maze;
+  }
+
   public int getCellSide() {
     return cellSide;
   }
@@ -96,15 +493,49 @@ public final class MazePainter {
     return wallThickness;
   }
 
+  /**
+   * @return Nombre de cases par côté d'un bloc du niveau affiché, 1 en mode détaillé.
+   */
+  public int getBlockSize() {
+    return isAggregated() ? 1 << level() : 1;
+  }
+
+  public int getViewX() {
+    return viewX;
+  }
+
+  public int getViewY() {
+    return viewY;
+  }
+
+  /**
+   * @return Côté d'une case à l'écran, en pixels (au moins 1).
+   */
+  public double getScreenCellSide() {
+    return isAggregated() ? scale : cellSide;
+  }
+
   // Fluent setters
 
   public MazePainter setCellColorF(Function<Integer, Color> cellColorF) {
-    this.cellColorF = cellColorF;
+    return setCellArgbF(v -> argb(cellColorF.apply(v)));
+  }
+
+  /**
+   * Variante primitive de {@link #setCellColorF(Function)}, sans allocation par case lue.
+   *
+   * @param cellArgbF Couleur ARGB de chaque case.
+   */
+  public MazePainter setCellArgbF(IntUnaryOperator cellArgbF) {
+    this.cellArgbF = cellArgbF;
+    invalidate();
     return this;
   }
 
   public MazePainter setWallColor(Color wallColor) {
     this.wallColor = wallColor;
+    this.wallArgb = argb(wallColor);
+    invalidate();
     return this;
   }
 
@@ -113,17 +544,182 @@ public final class MazePainter {
     return this;
   }
 
+  /**
+   * @param cellSide Côté d'une case en pixels, 0 pour le mode agrégé.
+   */
   public MazePainter setCellSide(int cellSide) {
     this.cellSide = cellSide;
     return this;
   }
 
+  /**
+   * Change d'échelle en mode agrégé. Les niveaux de la pyramide déjà construits sont conservés.
+   *
+   * @param scale Côté d'une case à l'écran, en pixels.
+   * @throws IllegalArgumentException si {@code scale} n'est pas strictement positif.
+   */
+  public MazePainter setScale(double scale) {
+    if (!(scale > 0))
+      throw new IllegalArgumentException("Scale: " + scale + " must be positive");
+
+    this.scale = scale;
+    return this;
+  }
+
+  /**
+   * Place l'origine de la fenêtre visible, en pixels du labyrinthe entier.
+   */
+  public MazePainter setView(int viewX, int viewY) {
+    this.viewX = viewX;
+    this.viewY = viewY;
+    return this;
+  }
+
+  // Conversions écran <-> labyrinthe
+
+  /**
+   * @param x Abscisse à l'écran.
+   * @return La colonne (fractionnaire) correspondante.
+   */
+  public double columnAt(double x) {
+    return isAggregated() ? (x + viewX) / scale : (x + viewX - 2 * wallThickness) / (cellSide + 2 * wallThickness);
+  }
+
+  /**
+   * @param y Ordonnée à l'écran.
+   * @return La ligne (fractionnaire) correspondante.
+   */
+  public double rowAt(double y) {
+    return isAggregated() ? (y + viewY) / scale : (y + viewY - 2 * wallThickness) / (cellSide + 2 * wallThickness);
+  }
+
+  /**
+   * @param x Abscisse à l'écran.
+   * @param y Ordonnée à l'écran.
+   * @return Le sommet sous le point donné, ou -1 s'il n'y en a pas.
+   */
+  public int vertexAt(double x, double y) {
+    int col = (int) Math.floor(columnAt(x));
+    int row = (int) Math.floor(rowAt(y));
+    if (row < 0 || col < 0 || row >= maze.height() || col >= maze.width()) return -1;
+    return row * maze.width() + col;
+  }
+
+  /**
+   * Déplace la fenêtre de sorte que le point (fractionnaire) {@code (col, row)} du labyrinthe soit affiché en
+   * {@code (x, y)} à l'écran.
+   */
+  public MazePainter anchor(double col, double row, double x, double y) {
+    if (isAggregated())
+      return setView((int) Math.round(col * scale - x), (int) Math.round(row * scale - y));
+
+    int pitch = cellSide + 2 * wallThickness;
+    return setView((int) Math.round(2 * wallThickness + col * pitch - x),
+          (int) Math.round(2 * wallThickness + row * pitch - y));
+  }
+
+  /**
+   * @return Abscisse à l'écran du bord gauche de la case du sommet donné.
+   */
+  public double screenX(int v) {
+    return isAggregated() ? col(v) * scale - viewX : cellOffset(col(v)) - viewX;
+  }
+
+  /**
+   * @return Ordonnée à l'écran du bord supérieur de la case du sommet donné.
+   */
+  public double screenY(int v) {
+    return isAggregated() ? row(v) * scale - viewY : cellOffset(row(v)) - viewY;
+  }
+
   // Helpers
 
   public int cellOffset(int pos) {
     return 2 * wallThickness + pos * (cellSide + 2 * wallThickness);
   }
 
+  /**
+   * Paramètres de rendu, pour détecter un changement depuis la dernière image.
+   */
+  private double[] geometry() {
+    return new double[] { viewX, viewY, cellSide, wallThickness, scale };
+  }
+
+  private boolean isAggregated() {
+    return cellSide <= 0;
+  }
+
+  /**
+   * @return Le niveau affiché : le plus fin dont les blocs couvrent au moins un pixel.
+   */
+  private int level() {
+    int level = 0;
+    while (level < levels.length - 1 && blockSide(level) < 1)
+      ++level;
+    return level;
+  }
+
+  /**
+   * @return Côté à l'écran d'un bloc du niveau donné, en pixels.
+   */
+  private double blockSide(int level) {
+    return scale * (1 << level);
+  }
+
+  private int levelWidth(int level) {
+    return (int) ((maze.width() + (1L << level) - 1) >> level);
+  }
+
+  private int levelHeight(int level) {
+    return (int) ((maze.height() + (1L << level) - 1) >> level);
+  }
+
+  /**
+   * @return Le bloc couvrant le pixel donné (en pixels du labyrinthe entier), -1 s'il n'y en a pas.
+   */
+  private static int blockAt(int pixel, double side, int blocks) {
+    if (pixel < 0) return -1;
+    long block = (long) Math.floor(pixel / side);
+    return block < blocks ? (int) block : -1;
+  }
+
+  private void rowColors(int row, int firstCol, int lastCol, int[] colors) {
+    int first = row * maze.width();
+    for (int col = firstCol; col <= lastCol; ++col)
+      colors[col] = cellArgbF.applyAsInt(first + col);
+  }
+
+  /**
+   * Remplit {@code length} pixels de la ligne à partir de {@code x}, en ignorant ce qui dépasse.
+   */
+  private static void fill(int[] line, int x, int length, int color) {
+    int from = Math.min(Math.max(x, 0), line.length);
+    int to = Math.min(Math.max(x + length, 0), line.length);
+    Arrays.fill(line, from, to, color);
+  }
+
+  /**
+   * Ecrit la même ligne de pixels sur {@code count} lignes de l'image à partir de {@code y}, en ignorant ce qui
+   * dépasse.
+   */
+  private static void writeLines(PixelWriter writer, IntBuffer line, int y, int count, int width, int height) {
+    for (int i = Math.max(y, 0); i < Math.min(y + count, height); ++i) {
+      line.rewind();
+      writer.setPixels(0, i, width, 1, PixelFormat.getIntArgbInstance(), line, width);
+    }
+  }
+
+  private static Color color(int argb) {
+    return Color.rgb(argb >> 16 & 0xFF, argb >> 8 & 0xFF, argb & 0xFF, (argb >>> 24) / 255.0);
+  }
+
+  private static int argb(Color color) {
+    return (int) Math.round(color.getOpacity() * 255) << 24
+          | (int) Math.round(color.getRed() * 255) << 16
+          | (int) Math.round(color.getGreen() * 255) << 8
+          | (int) Math.round(color.getBlue() * 255);
+  }
+
   private int row(int v) {
     return v / maze.width();
   }
@@ -132,5 +728,3 @@ public final class MazePainter {
     return v % maze.width();
   }
 }
-
-
@@ -0,0 +1,41 @@
+package gre.lab2.gui.impl;
+
+import jdk.jfr.*;
+
+/**
+ * Événement Flight Recorder couvrant la notification des abonnés d'un {@link ObservableMaze} après un changement.
+ *
+ * <p>Émis à chaque modification du labyrinthe, il est désactivé par défaut et doit être activé explicitement dans
+ * la configuration de l'enregistrement.</p>
+ */
+@Name("gre.lab2.Notification")
+@Label("Maze Notification")
+@Category({"GRE Lab2", "Observers"})
+@Description("Dispatch of a maze change to its subscribers")
+@Enabled(false)
+final class NotificationEvent extends Event {
+  @Label("Kind")
+  String kind;
+
+  @Label("U")
+  int u;
+
+  @Label("V")
+  int v;
+
+  @Label("Subscribers")
+  int subscribers;
+
+  /**
+   * Termine la mesure et l'enregistre si nécessaire.
+   */
+  void report(String kind, int u, int v, int subscribers) {
+    if (!shouldCommit()) return;
+
+    this.kind = kind;
+    this.u = u;
+    this.v = v;
+    this.subscribers = subscribers;
+    commit();
+  }
+}
@@ -3,104 +3,210 @@ package gre.lab2.gui.impl;
 import gre.lab2.graph.*;
 import gre.lab2.gui.MazeBuilder;
 import gre.lab2.gui.Progression;
+import jdk.jfr.FlightRecorder;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.concurrent.locks.StampedLock;
 
+/**
+ * <p>Labyrinthe observable, partagé entre le thread de génération/résolution et le thread JavaFX.</p>
+ *
+ * <p>Les modifications des arêtes sont protégées par un {@link StampedLock}. Les lectures ponctuelles
+ * ({@link #neighbors(int)}, {@link #areAdjacent(int, int)}) sont d'abord tentées de manière optimiste, sans verrou,
+ * et ne sont refaites sous verrou de lecture que si une écriture a eu lieu entre-temps. Les dimensions, immuables,
+ * sont lues sans aucune synchronisation. Le graphe délégué doit donc tolérer des lectures concurrentes à une
+ * écriture (au pire incohérentes, jamais bloquantes), ce qui est le cas de {@link GridGraph}.</p>
+ */
 public final class ObservableMaze
-      implements GridGraph2D, VertexLabelling<Progression>, ObservableGraph, MazeBuilder {
-  private final List<GraphObserver> subscribers = new ArrayList<>();
+      implements GridGraph2D, OrdinalVertexLabelling<Progression>, ObservableGraph, MazeBuilder {
+  /**
+   * Lecture ponctuelle du graphe délégué. Les implémentations ne capturent rien : ce sont des singletons, et une
+   * lecture optimiste n'alloue rien.
+   */
+  @FunctionalInterface
+  private interface Read<T> {
+    T apply(GridGraph2D graph, int u, int v);
+  }
+
+  private static final Read<List<Integer>> NEIGHBORS = (graph, u, v) -> graph.neighbors(u);
+  private static final Read<Boolean> ADJACENT = (graph, u, v) -> graph.areAdjacent(u, v);
+
+  // Copie sur écriture : les notifications parcourent un instantané sans verrou ni allocation
+  private volatile GraphObserver[] subscribers = new GraphObserver[0];
+  private final Object subscribersLock = new Object();
+  private final StampedLock edgesLock = new StampedLock();
+  private final Object labelsLock = new Object();
   private final Graph topology;
   private final GridGraph2D delegate;
-  private final Progression[] vertexData;
+  private final PackedOrdinalLabelling<Progression> vertexData;
+  private final int width;
+  private final int height;
+  private final int nbVertices;
 
   public ObservableMaze(Graph topology, GridGraph2D delegate) {
     this.topology = topology;
     this.delegate = delegate;
-    this.vertexData = new Progression[delegate.nbVertices()];
-    Arrays.fill(vertexData, Progression.PENDING);
+    this.width = delegate.width();
+    this.height = delegate.height();
+    this.nbVertices = delegate.nbVertices();
+    this.vertexData = new PackedOrdinalLabelling<>(Progression.class, nbVertices, Progression.PENDING);
   }
 
   @Override
-  public synchronized List<Integer> neighbors(int v) {
-    return delegate.neighbors(v);
+  public List<Integer> neighbors(int v) {
+    return optimisticRead(NEIGHBORS, v, 0);
   }
 
   @Override
-  public synchronized List<Edge> edges() {
-    return delegate.edges();
+  public List<Edge> edges() {
+    long stamp = edgesLock.readLock();
+    try {
+      return delegate.edges();
+    } finally {
+      edgesLock.unlockRead(stamp);
+    }
   }
 
   @Override
-  public synchronized boolean areAdjacent(int u, int v) {
-    return delegate.areAdjacent(u, v);
+  public boolean areAdjacent(int u, int v) {
+    // Boolean.valueOf : instances en cache, pas d'allocation
+    return optimisticRead(ADJACENT, u, v);
   }
 
   @Override
   public void addEdge(int u, int v) {
-    synchronized (this) {
+    long stamp = edgesLock.writeLock();
+    try {
       delegate.addEdge(u, v);
+    } finally {
+      edgesLock.unlockWrite(stamp);
     }
-    notify(s -> s.onEdgeAdded(u, v));
+
+    NotificationEvent event = beginNotification();
+    GraphObserver[] current = subscribers;
+    for (GraphObserver subscriber : current)
+      subscriber.onEdgeAdded(u, v);
+    if (event != null)
+      event.report("edgeAdded", u, v, current.length);
   }
 
   @Override
   public void removeEdge(int u, int v) {
-    synchronized (this) {
+    long stamp = edgesLock.writeLock();
+    try {
       delegate.removeEdge(u, v);
+    } finally {
+      edgesLock.unlockWrite(stamp);
+    }
+
+    NotificationEvent event = beginNotification();
+    GraphObserver[] current = subscribers;
+    for (GraphObserver subscriber : current)
+      subscriber.onEdgeRemoved(u, v);
+    if (event != null)
+      event.report("edgeRemoved", u, v, current.length);
+  }
+
+  /**
+   * Capture la structure actuelle du labyrinthe dans une grille immuable, lisible sans verrou depuis
+   * n'importe quel thread. Typiquement appelé une fois la génération terminée.
+   *
+   * @return Un instantané immuable du labyrinthe.
+   */
+  public FrozenGridGraph freeze() {
+    long stamp = edgesLock.readLock();
+    try {
+      return FrozenGridGraph.copyOf(delegate);
+    } finally {
+      edgesLock.unlockRead(stamp);
     }
-    notify(s -> s.onEdgeRemoved(u, v));
   }
 
   @Override
-  public synchronized int nbVertices() {
-    return delegate.nbVertices();
+  public int nbVertices() {
+    return nbVertices;
   }
 
   @Override
-  public synchronized boolean vertexExists(int v) {
-    return delegate.vertexExists(v);
+  public boolean vertexExists(int v) {
+    return v >= 0 && v < nbVertices;
   }
 
   @Override
   public void setLabel(int v, Progression data) {
+    setOrdinal(v, data.ordinal());
+  }
+
+  @Override
+  public Progression getLabel(int v) {
+    assertVertexExists(v);
+    return vertexData.getLabel(v);
+  }
+
+  @Override
+  public void setOrdinal(int v, int ordinal) {
     assertVertexExists(v);
 
-    if (data == vertexData[v])
-      // Evite de notifier s'il n'y a pas de vrai changement.
-      return;
+    // Ecritures sous verrou (lecture-modification-écriture d'un mot partagé par plusieurs sommets),
+    // lectures sans verrou, la lecture d'un mot étant atomique
+    synchronized (labelsLock) {
+      if (ordinal == vertexData.getOrdinal(v))
+        // Evite de notifier s'il n'y a pas de vrai changement.
+        return;
 
-    vertexData[v] = data;
-    notify(s -> s.onVertexChanged(v));
+      vertexData.setOrdinal(v, ordinal);
+    }
+
+    NotificationEvent event = beginNotification();
+    GraphObserver[] current = subscribers;
+    for (GraphObserver subscriber : current)
+      subscriber.onVertexChanged(v);
+    if (event != null)
+      event.report("vertexChanged", v, ordinal, current.length);
   }
 
   @Override
-  public Progression getLabel(int v) {
+  public int getOrdinal(int v) {
     assertVertexExists(v);
-    return vertexData[v];
+    return vertexData.getOrdinal(v);
   }
 
   @Override
   public void subscribe(GraphObserver observer) {
     if (observer == null) return;
-    subscribers.add(observer);
+
+    synchronized (subscribersLock) {
+      GraphObserver[] updated = Arrays.copyOf(subscribers, subscribers.length + 1);
+      updated[subscribers.length] = observer;
+      subscribers = updated;
+    }
   }
 
   @Override
   public void unsubscribe(GraphObserver observer) {
-    subscribers.remove(observer);
+    synchronized (subscribersLock) {
+      GraphObserver[] current = subscribers;
+      for (int i = 0; i < current.length; ++i) {
+        if (current[i].equals(observer)) {
+          GraphObserver[] updated = new GraphObserver[current.length - 1];
+          System.arraycopy(current, 0, updated, 0, i);
+          System.arraycopy(current, i + 1, updated, i, updated.length - i);
+          subscribers = updated;
+          return;
+        }
+      }
+    }
   }
 
   @Override
-  public synchronized int width() {
-    return delegate.width();
+  public int width() {
+    return width;
   }
 
   @Override
-  public synchronized int height() {
-    return delegate.height();
+  public int height() {
+    return height;
   }
 
   @Override
@@ -131,14 +237,49 @@ public final class ObservableMaze
 
   // Helpers
 
-  private void notify(Consumer<GraphObserver> lambda) {
-    for (var subscriber : subscribers) {
-      lambda.accept(subscriber);
+  /**
+   * Lecture optimiste, refaite sous verrou de lecture si une écriture a eu lieu pendant celle-ci.
+   */
+  private <T> T optimisticRead(Read<T> read, int u, int v) {
+    long stamp = edgesLock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        T result = read.apply(delegate, u, v);
+        if (edgesLock.validate(stamp))
+          return result;
+      } catch (RuntimeException e) {
+        // Exception légitime si aucune écriture concurrente, sinon on réessaie sous verrou
+        if (edgesLock.validate(stamp))
+          throw e;
+      }
+    }
+
+    stamp = edgesLock.readLock();
+    try {
+      return read.apply(delegate, u, v);
+    } finally {
+      edgesLock.unlockRead(stamp);
     }
   }
 
+  /**
+   * Commence la mesure d'une notification. Charger la classe d'un événement initialise le Flight Recorder, ce qui
+   * coûterait bien plus que la notification : comme pour la génération et la résolution, l'événement n'est créé
+   * qu'une fois l'enregistreur démarré.
+   *
+   * @return L'événement commencé, ou {@code null} si l'enregistreur ne tourne pas.
+   */
+  private static NotificationEvent beginNotification() {
+    if (!FlightRecorder.isInitialized())
+      return null;
+
+    NotificationEvent event = new NotificationEvent();
+    event.begin();
+    return event;
+  }
+
   private void assertVertexExists(int v) {
     if (!vertexExists(v))
-      throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds. Domain: [0," + width() * height() + "[");
+      throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds. Domain: [0," + nbVertices + "[");
   }
 }
@@ -0,0 +1,32 @@
+package gre.lab2.gui.impl;
+
+import jdk.jfr.*;
+
+/**
+ * Événement Flight Recorder couvrant un {@link MazePainter#repaint()}.
+ */
+@Name("gre.lab2.Repaint")
+@Label("Maze Repaint")
+@Category({"GRE Lab2", "Rendering"})
+@Description("Repaint of the visible part of a maze, rasterized again or from the cached image")
+final class RepaintEvent extends Event {
+  @Label("Maze Width")
+  int mazeWidth;
+
+  @Label("Maze Height")
+  int mazeHeight;
+
+  @Label("Canvas Width")
+  int canvasWidth;
+
+  @Label("Canvas Height")
+  int canvasHeight;
+
+  @Label("Block Size")
+  @Description("Cells per block side of the displayed pyramid level when rendering is aggregated, 1 otherwise")
+  int blockSize;
+
+  @Label("Rasterized")
+  @Description("False when the cached image was drawn again as is")
+  boolean rasterized;
+}
@@ -1,33 +1,40 @@
 package gre.lab2.gui.impl;
 
+import gre.lab2.graph.ByteVertexLabelling;
 import gre.lab2.graph.GraphObserver;
-import gre.lab2.graph.VertexLabelling;
+import gre.lab2.graph.IntVertexLabelling;
 
-public final class SolverMonitor implements VertexLabelling<Integer> {
-  private final int[] labels;
+public final class SolverMonitor implements IntVertexLabelling {
+  // Un octet par sommet suffit à l'affichage (-1 : chemin, 0 : non traité, > 0 : traité)
+  private final ByteVertexLabelling labels;
   private final GraphObserver observer;
+  // Somme des étiquettes, tenue à jour à chaque écriture (un seul thread écrivain) et lue en direct par l'UI
+  private volatile long total;
 
   public SolverMonitor(int size, GraphObserver observer) {
-    this.labels = new int[size];
+    this.labels = new ByteVertexLabelling(size);
     this.observer = observer;
   }
 
   @Override
-  public Integer getLabel(int v) {
-    return labels[v];
+  public int getInt(int v) {
+    return labels.getInt(v);
   }
 
   @Override
-  public void setLabel(int v, Integer label) {
-    labels[v] = label;
+  public void setInt(int v, int label) {
+    // Sature les compteurs de traitements au-delà de la capacité d'un octet
+    int saturated = Math.min(label, Byte.MAX_VALUE);
+    int previous = labels.getInt(v);
+    labels.setInt(v, saturated);
+    total += saturated - previous;
     observer.onVertexChanged(v);
   }
 
-  public int total() {
-    int total = 0;
-    for (int n : labels) {
-      total += n;
-    }
+  /**
+   * @return Somme des étiquettes, en temps constant.
+   */
+  public long total() {
     return total;
   }
 }
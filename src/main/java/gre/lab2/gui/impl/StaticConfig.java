@@ -1,10 +1,17 @@
 package gre.lab2.gui.impl;
 
 import gre.lab2.graph.Graph;
-import gre.lab2.graph.VertexLabelling;
+import gre.lab2.graph.IntVertexLabelling;
 import javafx.scene.paint.Color;
 
 public final class StaticConfig {
+  // Couleurs ARGB des cases, lues sans allocation par MazePainter
+  private static final int WHITE = 0xFFFFFFFF;
+  private static final int BLACK = 0xFF000000;
+  private static final int RED = 0xFFFF0000;
+  private static final int LIGHTSEAGREEN = 0xFF20B2AA;
+  private static final int LIGHTBLUE = 0xFFADD8E6;
+
   private StaticConfig(){}
 
   public static int startPoint(Graph graph) {
@@ -19,20 +26,20 @@ public final class StaticConfig {
     return Color.BLACK;
   }
 
-  public static Color generatorColor(ObservableMaze maze, int v) {
+  public static int generatorColor(ObservableMaze maze, int v) {
     return switch(maze.getLabel(v)) {
-      case PROCESSED -> Color.WHITE;
-      case PENDING -> Color.BLACK;
-      case PROCESSING -> Color.RED;
+      case PROCESSED -> WHITE;
+      case PENDING -> BLACK;
+      case PROCESSING -> RED;
     };
   }
 
-  public static Color solverCellColor(ObservableMaze maze, VertexLabelling<Integer> monitor, int v) {
+  public static int solverCellColor(ObservableMaze maze, IntVertexLabelling monitor, int v) {
     // Couleur différente par rapport au nombre de traitements ?
-    return switch(monitor.getLabel(v)) {
-      case -1 -> Color.LIGHTSEAGREEN;
+    return switch(monitor.getInt(v)) {
+      case -1 -> LIGHTSEAGREEN;
       case 0 -> StaticConfig.generatorColor(maze, v);
-      default -> Color.LIGHTBLUE;
+      default -> LIGHTBLUE;
     };
   }
 }
@@ -0,0 +1,276 @@
+package gre.lab2.gui.impl;
+
+import gre.lab2.graph.*;
+import javafx.animation.AnimationTimer;
+
+import java.util.function.IntSupplier;
+
+/**
+ * <p>Rejoue une {@link GraphTrace} sur une copie d'un labyrinthe, à n'importe quelle vitesse et avec un
+ * déplacement arbitraire dans la trace.</p>
+ *
+ * <p>Des images clés (structure et étiquettes) sont capturées à intervalle régulier lors de la construction.
+ * Se déplacer coûte alors la restauration d'une image clé puis au plus un intervalle d'événements, quelle que soit
+ * la longueur de la trace.</p>
+ *
+ * <p>Les images clés restent compactes : la structure tient sur 2 bits par case, et les étiquettes sur le nombre
+ * minimal de bits (1 à 32) couvrant les valeurs présentes dans la trace. Une image clé sans changement d'étiquette
+ * depuis la précédente partage ses étiquettes.</p>
+ *
+ * <p>Les étiquettes rejouées sont exposées par {@link #labels()}, à utiliser par la fonction de couleur du
+ * {@link MazePainter} construit sur {@link #maze()}.</p>
+ */
+public final class TracePlayer {
+  /** Nombre d'images clés visé par défaut */
+  private static final int DEFAULT_KEYFRAMES = 32;
+
+  private final GraphTrace trace;
+  private final GridGraph replica;
+  private final int[] labels;
+  private final int interval;
+  private final FrozenGridGraph[] keyGraphs;
+
+  /** Plus petite étiquette de la trace, soustraite avant l'empaquetage */
+  private final int labelBase;
+
+  /** log2 du nombre de bits par étiquette empaquetée */
+  private final int labelShift;
+
+  /** Etiquettes empaquetées de chaque image clé, {@code 64 >> labelShift} par {@code long} */
+  private final long[][] keyLabels;
+  private int position;
+
+  private AnimationTimer timer;
+
+  /**
+   * Construit un lecteur avec une trentaine d'images clés.
+   *
+   * @param trace Trace à rejouer.
+   * @param initial Etat du labyrinthe au début de l'enregistrement, toutes les étiquettes valant 0.
+   * @throws NullPointerException si {@code trace} ou {@code initial} sont {@code null}.
+   */
+  public TracePlayer(GraphTrace trace, GridGraph2D initial) {
+    this(trace, initial, Math.max(1024, trace.size() / DEFAULT_KEYFRAMES));
+  }
+
+  /**
+   * @param trace Trace à rejouer.
+   * @param initial Etat du labyrinthe au début de l'enregistrement, toutes les étiquettes valant 0.
+   * @param interval Nombre d'événements entre deux images clés.
+   * @throws NullPointerException si {@code trace} ou {@code initial} sont {@code null}.
+   * @throws IllegalArgumentException si {@code interval} n'est pas strictement positif.
+   */
+  public TracePlayer(GraphTrace trace, GridGraph2D initial, int interval) {
+    if (interval <= 0)
+      throw new IllegalArgumentException("Interval: " + interval + " must be positive");
+
+    this.trace = trace;
+    this.interval = interval;
+    this.replica = new GridGraph(initial.width(), initial.height());
+    this.labels = new int[initial.nbVertices()];
+    for (Edge e : initial.edges())
+      replica.addEdge(e.u(), e.v());
+
+    // Etendue des étiquettes, 0 compris pour l'état initial
+    long min = 0;
+    long max = 0;
+    for (int i = 0; i < trace.size(); ++i) {
+      if (trace.kind(i) == GraphTrace.Kind.VERTEX_CHANGED) {
+        min = Math.min(min, trace.v(i));
+        max = Math.max(max, trace.v(i));
+      }
+    }
+    int bits = 1;
+    while (bits < 32 && (1L << bits) <= max - min)
+      bits <<= 1;
+    labelBase = (int) min;
+    labelShift = Integer.numberOfTrailingZeros(bits);
+
+    int count = trace.size() / interval + 1;
+    keyGraphs = new FrozenGridGraph[count];
+    keyLabels = new long[count][];
+    for (int k = 0; k < count; ++k) {
+      boolean changed = k == 0;
+      for (int i = position; i < k * interval; ++i)
+        changed |= trace.kind(i) == GraphTrace.Kind.VERTEX_CHANGED;
+
+      apply(k * interval - position);
+      keyGraphs[k] = FrozenGridGraph.copyOf(replica);
+      keyLabels[k] = changed ? packLabels() : keyLabels[k - 1];
+    }
+
+    restore(0);
+  }
+
+  /**
+   * @return Le labyrinthe rejoué, à l'état de la position courante.
+   */
+  public GridGraph2D maze() {
+    return replica;
+  }
+
+  /**
+   * @return Les étiquettes des sommets à la position courante.
+   */
+  public IntVertexLabelling labels() {
+    return new IntVertexLabelling() {
+      @Override
+      public int getInt(int v) {
+        return labels[v];
+      }
+
+      @Override
+      public void setInt(int v, int label) {
+        throw new UnsupportedOperationException("Replayed labels can't be modified");
+      }
+    };
+  }
+
+  /**
+   * @return Le nombre d'événements déjà rejoués.
+   */
+  public int position() {
+    return position;
+  }
+
+  /**
+   * @return Le nombre total d'événements.
+   */
+  public int length() {
+    return trace.size();
+  }
+
+  /**
+   * Se déplace dans la trace. Le labyrinthe doit ensuite être entièrement redessiné.
+   *
+   * @param target Nombre d'événements rejoués souhaité.
+   * @throws IndexOutOfBoundsException si {@code target} n'est pas dans {@code [0, length()]}.
+   */
+  public void seek(int target) {
+    if (target < 0 || target > trace.size())
+      throw new IndexOutOfBoundsException("Position " + target + " out of bounds. Domain: [0," + trace.size() + "]");
+
+    if (target < position || target - position > interval)
+      restore(target / interval);
+    apply(target - position);
+  }
+
+  /**
+   * Rejoue les événements suivants en les dessinant au fur et à mesure.
+   *
+   * @param count Nombre maximal d'événements à rejouer.
+   * @param painter Painter construit sur {@link #maze()}.
+   * @return Le nombre d'événements rejoués.
+   */
+  public int advance(int count, MazePainter painter) {
+    int end = (int) Math.min((long) position + count, trace.size());
+    int played = end - position;
+    for (; position < end; ++position) {
+      applyEvent(position);
+      if (trace.kind(position) == GraphTrace.Kind.VERTEX_CHANGED)
+        painter.drawCell(trace.u(position));
+      else
+        painter.drawWall(trace.u(position), trace.v(position));
+    }
+    return played;
+  }
+
+  /**
+   * Lance la lecture depuis la position courante. Doit être appelé depuis le thread JavaFX.
+   *
+   * @param painter Painter construit sur {@link #maze()}.
+   * @param eventsPerSecond Débit de lecture, consulté à chaque image.
+   */
+  public void play(MazePainter painter, IntSupplier eventsPerSecond) {
+    pause();
+    timer = new AnimationTimer() {
+      private long last = -1;
+      private double credit;
+
+      @Override
+      public void handle(long now) {
+        if (last >= 0)
+          credit += (now - last) * 1e-9 * Math.max(1, eventsPerSecond.getAsInt());
+        last = now;
+
+        credit -= advance((int) credit, painter);
+        if (position == trace.size())
+          stop();
+      }
+    };
+    timer.start();
+  }
+
+  /**
+   * Interrompt la lecture. Doit être appelé depuis le thread JavaFX.
+   */
+  public void pause() {
+    if (timer != null)
+      timer.stop();
+    timer = null;
+  }
+
+  // Helpers
+
+  private void restore(int keyframe) {
+    FrozenGridGraph snapshot = keyGraphs[keyframe];
+    int width = replica.width();
+    for (int v = 0; v < replica.nbVertices(); ++v) {
+      if (v % width < width - 1)
+        restoreEdge(v, v + 1, snapshot.hasRight(v));
+      if (v < replica.nbVertices() - width)
+        restoreEdge(v, v + width, snapshot.hasDown(v));
+    }
+
+    unpackLabels(keyLabels[keyframe]);
+    position = keyframe * interval;
+  }
+
+  private long[] packLabels() {
+    long mask = (1L << (1 << labelShift)) - 1;
+    long[] words = new long[(int) (((long) labels.length << labelShift) + 63 >>> 6)];
+    for (int v = 0; v < labels.length; ++v) {
+      long bit = (long) v << labelShift;
+      words[(int) (bit >>> 6)] |= (labels[v] - labelBase & mask) << bit;
+    }
+    return words;
+  }
+
+  private void unpackLabels(long[] words) {
+    long mask = (1L << (1 << labelShift)) - 1;
+    for (int v = 0; v < labels.length; ++v) {
+      long bit = (long) v << labelShift;
+      labels[v] = (int) (words[(int) (bit >>> 6)] >>> bit & mask) + labelBase;
+    }
+  }
+
+  private void restoreEdge(int u, int v, boolean present) {
+    if (present != replica.areAdjacent(u, v)) {
+      if (present)
+        replica.addEdge(u, v);
+      else
+        replica.removeEdge(u, v);
+    }
+  }
+
+  private void apply(int count) {
+    for (int end = position + count; position < end; ++position)
+      applyEvent(position);
+  }
+
+  private void applyEvent(int i) {
+    int u = trace.u(i);
+    int v = trace.v(i);
+    switch (trace.kind(i)) {
+      case EDGE_ADDED -> {
+        if (!replica.areAdjacent(u, v))
+          replica.addEdge(u, v);
+      }
+      case EDGE_REMOVED -> {
+        if (replica.areAdjacent(u, v))
+          replica.removeEdge(u, v);
+      }
+      case VERTEX_CHANGED -> labels[u] = v;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package gre.lab2.io;
+
+import gre.lab2.graph.FrozenGridGraph;
+import gre.lab2.graph.GridGraph2D;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Format binaire compact de labyrinthe, lisible par projection en mémoire sans analyse.</p>
+ *
+ * <p>Le fichier, en petit-boutiste, commence par un en-tête de {@value #HEADER_SIZE} octets :</p>
+ * <ul>
+ *   <li>signature {@code "GREM"} (4 octets) puis version (4 octets) ;</li>
+ *   <li>largeur et hauteur (4 octets chacune) ;</li>
+ *   <li>graine de génération (8 octets) ;</li>
+ *   <li>CRC32 des données (4 octets) puis 4 octets réservés, à 0.</li>
+ * </ul>
+ *
+ * <p>Suivent les passages, 2 bits par case dans des mots de 64 bits alignés, selon la disposition de
+ * {@link FrozenGridGraph#wrap(java.nio.LongBuffer, int, int)} : le chargement projette simplement ces mots en
+ * mémoire, quelle que soit la taille du labyrinthe.</p>
+ */
+public final class MazeFile {
+  /** Taille de l'en-tête, multiple de 8 pour aligner les données */
+  public static final int HEADER_SIZE = 32;
+
+  private static final int MAGIC = 0x4D455247; // "GREM" en petit-boutiste
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final int version;
+  private final long seed;
+  private final int checksum;
+  private final FrozenGridGraph graph;
+
+  private MazeFile(int version, long seed, int checksum, FrozenGridGraph graph) {
+    this.version = version;
+    this.seed = seed;
+    this.checksum = checksum;
+    this.graph = graph;
+  }
+
+  /**
+   * @return Version du format du fichier.
+   */
+  public int version() {
+    return version;
+  }
+
+  /**
+   * @return Graine de génération enregistrée avec le labyrinthe.
+   */
+  public long seed() {
+    return seed;
+  }
+
+  /**
+   * @return CRC32 des données, tel qu'enregistré dans l'en-tête.
+   */
+  public int checksum() {
+    return checksum;
+  }
+
+  /**
+   * @return Le labyrinthe, en lecture seule, adossé au fichier projeté en mémoire.
+   */
+  public FrozenGridGraph graph() {
+    return graph;
+  }
+
+  /**
+   * Enregistre un labyrinthe. Les passages sont calculés et écrits au fil de l'eau, sans copie intermédiaire du
+   * graphe.
+   *
+   * @param path Fichier de destination, remplacé s'il existe.
+   * @param maze Labyrinthe à enregistrer.
+   * @param seed Graine ayant servi à le générer, 0 si inconnue.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  public static void write(Path path, GridGraph2D maze, long seed) throws IOException {
+    int width = maze.width();
+    int height = maze.height();
+    int words = FrozenGridGraph.wordCount(width, height);
+    FrozenGridGraph frozen = maze instanceof FrozenGridGraph f ? f : null;
+
+    try (FileChannel channel = FileChannel.open(path,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      CRC32 crc = new CRC32();
+
+      // En-tête complété une fois le CRC connu
+      channel.position(HEADER_SIZE);
+      for (int i = 0; i < words; ++i) {
+        buffer.putLong(frozen != null ? frozen.word(i) : word(maze, i));
+        if (!buffer.hasRemaining())
+          flush(channel, buffer, crc);
+      }
+      flush(channel, buffer, crc);
+
+      header(buffer, width, height, seed, crc).flip();
+      while (buffer.hasRemaining())
+        channel.write(buffer, buffer.position());
+    }
+  }
+
+  /**
+   * Écrit un labyrinthe dans un flux, par exemple une réponse réseau. L'en-tête précédant les données, les passages
+   * sont parcourus deux fois : une pour le CRC, une pour l'écriture.
+   *
+   * @param channel Flux de destination, laissé ouvert.
+   * @param maze    Labyrinthe à écrire.
+   * @param seed    Graine ayant servi à le générer, 0 si inconnue.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  public static void write(WritableByteChannel channel, GridGraph2D maze, long seed) throws IOException {
+    int width = maze.width();
+    int height = maze.height();
+    int words = FrozenGridGraph.wordCount(width, height);
+    FrozenGridGraph frozen = maze instanceof FrozenGridGraph f ? f : null;
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    CRC32 crc = new CRC32();
+    for (int i = 0; i < words; ++i) {
+      buffer.putLong(frozen != null ? frozen.word(i) : word(maze, i));
+      if (!buffer.hasRemaining()) {
+        crc.update(buffer.flip());
+        buffer.clear();
+      }
+    }
+    crc.update(buffer.flip());
+    buffer.clear();
+
+    header(buffer, width, height, seed, crc);
+    for (int i = 0; i < words; ++i) {
+      if (buffer.remaining() < Long.BYTES)
+        drain(channel, buffer);
+      buffer.putLong(frozen != null ? frozen.word(i) : word(maze, i));
+    }
+    drain(channel, buffer);
+  }
+
+  /**
+   * @return Taille en octets du fichier d'un labyrinthe de ces dimensions.
+   */
+  public static long size(int width, int height) {
+    return HEADER_SIZE + 8L * FrozenGridGraph.wordCount(width, height);
+  }
+
+  /**
+   * Charge un labyrinthe sans vérifier ses données, en temps constant.
+   *
+   * @param path Fichier à charger.
+   * @return Le fichier chargé.
+   * @throws IOException en cas d'erreur de lecture ou si l'en-tête est invalide.
+   */
+  public static MazeFile open(Path path) throws IOException {
+    return open(path, false);
+  }
+
+  /**
+   * Charge un labyrinthe en projetant ses données en mémoire.
+   *
+   * @param path   Fichier à charger.
+   * @param verify {@code true} pour vérifier le CRC32 des données, ce qui implique de les lire entièrement.
+   * @return Le fichier chargé.
+   * @throws IOException en cas d'erreur de lecture, si l'en-tête est invalide ou si la vérification échoue.
+   */
+  public static MazeFile open(Path path, boolean verify) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0);
+      if (header.hasRemaining())
+        throw new IOException("Truncated maze file header: " + path);
+      header.flip();
+
+      if (header.getInt() != MAGIC)
+        throw new IOException("Not a maze file: " + path);
+      int version = header.getInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported maze file version " + version + ": " + path);
+      int width = header.getInt();
+      int height = header.getInt();
+      long seed = header.getLong();
+      int checksum = header.getInt();
+      if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE)
+        throw new IOException("Invalid maze dimensions " + width + "x" + height + ": " + path);
+
+      long size = 8L * FrozenGridGraph.wordCount(width, height);
+      if (channel.size() < HEADER_SIZE + size)
+        throw new IOException("Truncated maze file: " + path);
+
+      // La projection reste valide une fois le canal fermé
+      MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size);
+      data.order(ByteOrder.LITTLE_ENDIAN);
+      if (verify) {
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        if ((int) crc.getValue() != checksum)
+          throw new IOException("Corrupted maze file, checksum mismatch: " + path);
+      }
+
+      FrozenGridGraph graph = FrozenGridGraph.wrap(data.asLongBuffer(), width, height);
+      return new MazeFile(version, seed, checksum, graph);
+    }
+  }
+
+  /**
+   * Calcule les passages des sommets <i>32i</i> à <i>32i + 31</i> d'une grille quelconque.
+   */
+  private static long word(GridGraph2D maze, int i) {
+    int width = maze.width();
+    int n = maze.nbVertices();
+    long word = 0;
+    for (int v = 32 * i, end = (int) Math.min(32L * i + 32, n); v < end; ++v) {
+      if (v % width < width - 1 && maze.areAdjacent(v, v + 1))
+        word |= 1L << (2 * v);
+      if (v < n - width && maze.areAdjacent(v, v + width))
+        word |= 2L << (2 * v);
+    }
+    return word;
+  }
+
+  private static ByteBuffer header(ByteBuffer buffer, int width, int height, long seed, CRC32 crc) {
+    return buffer.putInt(MAGIC)
+          .putInt(VERSION)
+          .putInt(width)
+          .putInt(height)
+          .putLong(seed)
+          .putInt((int) crc.getValue())
+          .putInt(0);
+  }
+
+  private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+    buffer.flip();
+    crc.update(buffer.duplicate());
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+}
@@ -0,0 +1,377 @@
+package gre.lab2.io;
+
+import gre.lab2.graph.GridGraph2D;
+import gre.lab2.graph.IntVertexLabelling;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * <p>Export d'un labyrinthe sous forme d'image, sans JavaFX ni canvas.</p>
+ *
+ * <p>Chaque case occupe un pixel, séparée de ses voisines par un pixel de mur ou de passage, soit une image de
+ * <i>(2 * largeur + 1) x (2 * hauteur + 1)</i> pixels avant mise à l'échelle. Le graphe est parcouru ligne par
+ * ligne et chaque ligne de pixels est écrite dès qu'elle est calculée : la mémoire utilisée est proportionnelle
+ * à la largeur de l'image, quelle que soit sa hauteur.</p>
+ *
+ * <p>Une superposition optionnelle, au format de {@code SolverMonitor} (-1 pour le chemin, 0 pour une case non
+ * traitée, le nombre de traitements sinon), colore les cases traitées et le chemin trouvé. Elle est ignorée par
+ * le format {@link Format#PBM}, monochrome.</p>
+ */
+public final class MazeImageWriter {
+  /**
+   * Format d'image produit.
+   */
+  public enum Format {
+    /**
+     * Netpbm binaire monochrome (P4), murs en noir.
+     */
+    PBM,
+
+    /**
+     * Netpbm binaire en niveaux de gris (P5).
+     */
+    PGM,
+
+    /**
+     * PNG à palette indexée de 4 couleurs (2 bits par pixel).
+     */
+    PNG
+  }
+
+  // Indices de palette, repris des couleurs de StaticConfig
+  private static final byte WALL = 0;
+  private static final byte OPEN = 1;
+  private static final byte TREATED = 2;
+  private static final byte PATH = 3;
+  private static final int[] PALETTE = { 0x000000, 0xFFFFFF, 0xADD8E6, 0x20B2AA };
+
+  private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+  // Taille maximale des données compressées par bloc IDAT
+  private static final int IDAT_CHUNK = 1 << 16;
+
+  private final GridGraph2D maze;
+  private int scale = 1;
+  private IntVertexLabelling overlay;
+
+  /**
+   * @param maze Labyrinthe à exporter.
+   * @throws NullPointerException si {@code maze} est {@code null}.
+   */
+  public MazeImageWriter(GridGraph2D maze) {
+    if (maze == null)
+      throw new NullPointerException("maze is null");
+    this.maze = maze;
+  }
+
+  /**
+   * @param scale Côté en pixels de chaque case et de chaque mur.
+   * @return Cet exporteur.
+   * @throws IllegalArgumentException si {@code scale} n'est pas strictement positif.
+   */
+  public MazeImageWriter setScale(int scale) {
+    if (scale < 1)
+      throw new IllegalArgumentException("Scale must be positive: " + scale);
+    this.scale = scale;
+    return this;
+  }
+
+  /**
+   * @param overlay Étiquettes de résolution à superposer, ou {@code null} pour n'exporter que le labyrinthe.
+   * @return Cet exporteur.
+   */
+  public MazeImageWriter setOverlay(IntVertexLabelling overlay) {
+    this.overlay = overlay;
+    return this;
+  }
+
+  /**
+   * @return Largeur de l'image produite, en pixels.
+   */
+  public int imageWidth() {
+    return imageSide(maze.width());
+  }
+
+  /**
+   * @return Hauteur de l'image produite, en pixels.
+   */
+  public int imageHeight() {
+    return imageSide(maze.height());
+  }
+
+  /**
+   * Écrit l'image dans un fichier, le format étant déduit de son extension ({@code .pbm}, {@code .pgm} ou
+   * {@code .png}).
+   *
+   * @param path Fichier de destination, remplacé s'il existe.
+   * @throws IllegalArgumentException si l'extension ne correspond à aucun format.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  public void write(Path path) throws IOException {
+    String name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    Format format;
+    try {
+      format = Format.valueOf(name.substring(dot + 1).toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown image format: " + name);
+    }
+
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), IDAT_CHUNK)) {
+      write(format, out);
+    }
+  }
+
+  /**
+   * Écrit l'image dans un flux, qui n'est pas fermé.
+   *
+   * @param format Format de l'image.
+   * @param out    Flux de destination.
+   * @throws IOException en cas d'erreur d'écriture.
+   */
+  public void write(Format format, OutputStream out) throws IOException {
+    int width = imageWidth();
+    int height = imageHeight();
+    RowEncoder encoder = switch (format) {
+      case PBM -> new PbmEncoder(out, width, height);
+      case PGM -> new PgmEncoder(out, width, height);
+      case PNG -> new PngEncoder(out, width, height);
+    };
+
+    int w = maze.width();
+    int h = maze.height();
+    byte[] cells = new byte[2 * w + 1];
+    byte[] pixels = new byte[width];
+
+    // Bordure supérieure
+    emit(encoder, cells, pixels);
+    for (int r = 0; r < h; ++r) {
+      int rowStart = r * w;
+
+      // Ligne des cases et des passages horizontaux
+      cells[0] = WALL;
+      for (int c = 0; c < w; ++c) {
+        int v = rowStart + c;
+        cells[2 * c + 1] = cell(v);
+        cells[2 * c + 2] = c + 1 < w && maze.areAdjacent(v, v + 1) ? passage(v, v + 1) : WALL;
+      }
+      emit(encoder, cells, pixels);
+
+      // Ligne des passages verticaux, la dernière étant la bordure inférieure
+      for (int c = 0; c < w; ++c) {
+        int v = rowStart + c;
+        cells[2 * c + 1] = r + 1 < h && maze.areAdjacent(v, v + w) ? passage(v, v + w) : WALL;
+        cells[2 * c + 2] = WALL;
+      }
+      emit(encoder, cells, pixels);
+    }
+    encoder.finish();
+    out.flush();
+  }
+
+  private int imageSide(int cells) {
+    long side = (2L * cells + 1) * scale;
+    if (side > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Image too large: " + side + " pixels per side");
+    return (int) side;
+  }
+
+  /**
+   * Met la ligne à l'échelle horizontalement puis l'écrit {@link #scale} fois.
+   */
+  private void emit(RowEncoder encoder, byte[] cells, byte[] pixels) throws IOException {
+    if (scale == 1) {
+      System.arraycopy(cells, 0, pixels, 0, cells.length);
+    } else {
+      for (int i = 0; i < cells.length; ++i)
+        Arrays.fill(pixels, i * scale, (i + 1) * scale, cells[i]);
+    }
+    for (int i = 0; i < scale; ++i)
+      encoder.writeRow(pixels);
+  }
+
+  private byte cell(int v) {
+    if (overlay == null) return OPEN;
+
+    int label = overlay.getInt(v);
+    return label < 0 ? PATH : label > 0 ? TREATED : OPEN;
+  }
+
+  private byte passage(int u, int v) {
+    if (overlay == null) return OPEN;
+
+    byte a = cell(u);
+    byte b = cell(v);
+    if (a == OPEN || b == OPEN) return OPEN;
+    return a == PATH && b == PATH ? PATH : TREATED;
+  }
+
+  private abstract static class RowEncoder {
+    abstract void writeRow(byte[] pixels) throws IOException;
+
+    void finish() throws IOException {}
+  }
+
+  private static final class PbmEncoder extends RowEncoder {
+    private final OutputStream out;
+    private final byte[] packed;
+
+    PbmEncoder(OutputStream out, int width, int height) throws IOException {
+      this.out = out;
+      this.packed = new byte[(width + 7) / 8];
+      out.write(("P4\n" + width + " " + height + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    void writeRow(byte[] pixels) throws IOException {
+      Arrays.fill(packed, (byte) 0);
+      for (int x = 0; x < pixels.length; ++x) {
+        // 1 pour noir
+        if (pixels[x] == WALL)
+          packed[x >>> 3] |= (byte) (0x80 >>> (x & 7));
+      }
+      out.write(packed);
+    }
+  }
+
+  private static final class PgmEncoder extends RowEncoder {
+    private static final byte[] GRAYS = new byte[PALETTE.length];
+
+    static {
+      for (int i = 0; i < PALETTE.length; ++i) {
+        int rgb = PALETTE[i];
+        // Luminance Rec. 601
+        GRAYS[i] = (byte) Math.round(0.299 * (rgb >>> 16) + 0.587 * (rgb >>> 8 & 0xFF) + 0.114 * (rgb & 0xFF));
+      }
+    }
+
+    private final OutputStream out;
+    private final byte[] grays;
+
+    PgmEncoder(OutputStream out, int width, int height) throws IOException {
+      this.out = out;
+      this.grays = new byte[width];
+      out.write(("P5\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    void writeRow(byte[] pixels) throws IOException {
+      for (int x = 0; x < pixels.length; ++x)
+        grays[x] = GRAYS[pixels[x]];
+      out.write(grays);
+    }
+  }
+
+  private static final class PngEncoder extends RowEncoder {
+    private final OutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final DeflaterOutputStream idat;
+    // Octet de filtre (aucun) suivi des pixels à 2 bits
+    private final byte[] scanline;
+
+    PngEncoder(OutputStream out, int width, int height) throws IOException {
+      this.out = out;
+      this.scanline = new byte[1 + (width + 3) / 4];
+
+      out.write(PNG_SIGNATURE);
+
+      ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+      DataOutputStream data = new DataOutputStream(header);
+      data.writeInt(width);
+      data.writeInt(height);
+      data.writeByte(2); // bits par pixel
+      data.writeByte(3); // couleurs indexées
+      data.writeByte(0); // compression deflate
+      data.writeByte(0); // filtrage adaptatif
+      data.writeByte(0); // sans entrelacement
+      writeChunk(out, "IHDR", header.toByteArray(), header.size());
+
+      byte[] palette = new byte[3 * PALETTE.length];
+      for (int i = 0; i < PALETTE.length; ++i) {
+        palette[3 * i] = (byte) (PALETTE[i] >>> 16);
+        palette[3 * i + 1] = (byte) (PALETTE[i] >>> 8);
+        palette[3 * i + 2] = (byte) PALETTE[i];
+      }
+      writeChunk(out, "PLTE", palette, palette.length);
+
+      idat = new DeflaterOutputStream(new IdatOutputStream(out), deflater, IDAT_CHUNK);
+    }
+
+    @Override
+    void writeRow(byte[] pixels) throws IOException {
+      Arrays.fill(scanline, (byte) 0);
+      for (int x = 0; x < pixels.length; ++x)
+        scanline[1 + (x >>> 2)] |= (byte) (pixels[x] << (6 - 2 * (x & 3)));
+      idat.write(scanline);
+    }
+
+    @Override
+    void finish() throws IOException {
+      // Vide le compresseur et le dernier bloc IDAT sans fermer le flux de destination
+      idat.finish();
+      idat.flush();
+      deflater.end();
+      writeChunk(out, "IEND", new byte[0], 0);
+    }
+  }
+
+  /**
+   * Découpe les données compressées en blocs IDAT d'au plus {@link #IDAT_CHUNK} octets.
+   */
+  private static final class IdatOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[IDAT_CHUNK];
+    private int size;
+
+    IdatOutputStream(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (size == buffer.length)
+        flush();
+      buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (size == buffer.length)
+          flush();
+        int n = Math.min(len, buffer.length - size);
+        System.arraycopy(b, off, buffer, size, n);
+        size += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (size == 0) return;
+      writeChunk(out, "IDAT", buffer, size);
+      size = 0;
+    }
+  }
+
+  private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+    byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(data, 0, length);
+
+    DataOutputStream chunk = new DataOutputStream(out);
+    chunk.writeInt(length);
+    chunk.write(typeBytes);
+    chunk.write(data, 0, length);
+    chunk.writeInt((int) crc.getValue());
+  }
+}
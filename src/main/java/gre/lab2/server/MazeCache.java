@@ -0,0 +1,170 @@
+package gre.lab2.server;
+
+import gre.lab2.graph.FrozenGridGraph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * <p>Cache LRU de labyrinthes générés, borné par la mémoire occupée.</p>
+ *
+ * <p>Les labyrinthes sont conservés figés ({@link FrozenGridGraph}, 2 bits par case), leur poids se déduit donc de
+ * leurs seules dimensions. Une génération en cours est partagée : des requêtes concurrentes pour une même clé
+ * attendent la même génération au lieu de la répéter.</p>
+ *
+ * <p>Toutes les méthodes sont sûres depuis plusieurs threads ; le verrou n'est tenu que pour consulter la table,
+ * jamais pendant une génération.</p>
+ */
+public final class MazeCache {
+  /**
+   * Identité d'un labyrinthe : générateur, dimensions et graine.
+   *
+   * @param generator Nom du générateur.
+   * @param width     Largeur.
+   * @param height    Hauteur.
+   * @param seed      Graine de génération.
+   */
+  public record Key(String generator, int width, int height, long seed) {
+    /**
+     * @return Poids en octets du labyrinthe figé, en-tête d'objet compris.
+     */
+    long weight() {
+      return 8L * FrozenGridGraph.wordCount(width, height) + ENTRY_OVERHEAD;
+    }
+  }
+
+  /** Estimation de la place occupée par une entrée en plus des passages */
+  private static final long ENTRY_OVERHEAD = 256;
+
+  private final long capacity;
+
+  /** Ordre d'accès : l'entrée la moins récemment utilisée est la première */
+  private final LinkedHashMap<Key, FutureTask<FrozenGridGraph>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long weight;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param capacity Poids total maximal des labyrinthes conservés, en octets.
+   * @throws IllegalArgumentException si {@code capacity} est négative.
+   */
+  public MazeCache(long capacity) {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Capacity must be positive");
+    this.capacity = capacity;
+  }
+
+  /**
+   * Retourne le labyrinthe d'une clé, en le générant au besoin. Un labyrinthe plus lourd que la capacité totale
+   * est généré sans être conservé.
+   *
+   * @param key    Identité du labyrinthe.
+   * @param loader Génère le labyrinthe d'une clé absente.
+   * @return Le labyrinthe.
+   * @throws InterruptedException si le thread est interrompu en attendant une génération concurrente.
+   */
+  public FrozenGridGraph get(Key key, Function<Key, FrozenGridGraph> loader) throws InterruptedException {
+    FutureTask<FrozenGridGraph> task;
+    boolean owner = false;
+
+    synchronized (this) {
+      task = entries.get(key);
+      if (task != null) {
+        ++hits;
+      } else {
+        ++misses;
+        task = new FutureTask<>(() -> loader.apply(key));
+        owner = true;
+        if (key.weight() <= capacity) {
+          entries.put(key, task);
+          weight += key.weight();
+          evict();
+        }
+      }
+    }
+
+    if (owner)
+      task.run();
+
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      // Un échec n'est pas conservé, la prochaine requête retentera
+      synchronized (this) {
+        if (entries.remove(key, task))
+          weight -= key.weight();
+      }
+      if (e.getCause() instanceof RuntimeException re)
+        throw re;
+      if (e.getCause() instanceof Error error)
+        throw error;
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Vide le cache, sans réinitialiser les statistiques.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * @return Nombre de labyrinthes conservés.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return Poids total des labyrinthes conservés, en octets.
+   */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  /**
+   * @return Poids total maximal, en octets.
+   */
+  public long capacity() {
+    return capacity;
+  }
+
+  /**
+   * @return Nombre de labyrinthes trouvés dans le cache, générations en cours comprises.
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * @return Nombre de labyrinthes générés faute d'être dans le cache.
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * @return Nombre de labyrinthes retirés pour respecter la capacité.
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Key, FutureTask<FrozenGridGraph>>> it = entries.entrySet().iterator();
+    while (weight > capacity && it.hasNext()) {
+      Key eldest = it.next().getKey();
+      it.remove();
+      weight -= eldest.weight();
+      ++evictions;
+    }
+  }
+}
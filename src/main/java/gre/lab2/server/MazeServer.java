@@ -0,0 +1,413 @@
+package gre.lab2.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gre.lab2.graph.ByteVertexLabelling;
+import gre.lab2.graph.FrozenGridGraph;
+import gre.lab2.gui.GridMazeBuilder;
+import gre.lab2.gui.InstanceProvider;
+import gre.lab2.io.MazeFile;
+import gre.lab2.io.MazeImageWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Service HTTP local de génération et de résolution de labyrinthes, sur le serveur HTTP du JDK.</p>
+ *
+ * <ul>
+ *   <li>{@code GET /maze?size=WxH&seed=S[&generator=G][&format=maze|png|pbm|pgm][&scale=K]} : le labyrinthe, au
+ *   format {@link MazeFile} par défaut ;</li>
+ *   <li>{@code GET /solve?size=WxH&seed=S&from=U&to=V[&generator=G][&format=json|png|pbm|pgm][&scale=K]} : le
+ *   chemin de {@code U} à {@code V}, en JSON par défaut ou en image avec les cases traitées ;</li>
+ *   <li>{@code GET /stats} : statistiques du cache, en JSON.</li>
+ * </ul>
+ *
+ * <p>{@code size} est un côté ou des dimensions {@code WxH}, {@code generator} le nom d'un générateur
+ * ({@link #generators()}), le premier par défaut. Les labyrinthes générés sont conservés dans un {@link MazeCache} :
+ * des résolutions répétées sur un même labyrinthe ne le régénèrent pas.</p>
+ *
+ * <p>Chaque requête est traitée sur son propre thread virtuel lorsque le JDK le permet, sinon sur un pool borné
+ * dont la file pleine fait attendre le thread d'acceptation.</p>
+ *
+ * <p>Les threads virtuels ne bornant pas le nombre de requêtes simultanées, générations et résolutions réservent
+ * d'abord leur mémoire estimée sur la part du tas laissée par le cache. Une requête qui ne peut la réserver
+ * immédiatement reçoit une réponse 503, plutôt que de risquer un {@link OutOfMemoryError}.</p>
+ */
+public final class MazeServer implements AutoCloseable {
+  /** Nombre maximal de cases d'un labyrinthe demandé, par défaut */
+  public static final int DEFAULT_MAX_CELLS = 1 << 24;
+
+  private static final int MAX_SCALE = 16;
+  private static final long MAX_PIXELS = 1L << 28;
+  private static final int QUEUE_SIZE = 256;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** Octets alloués par case pendant une génération : grilles du constructeur, arêtes mélangées, union-find */
+  private static final long GENERATION_BYTES_PER_CELL = 128;
+
+  /** Octets alloués par case pendant une résolution : traitements et structures du solveur */
+  private static final long SOLVE_BYTES_PER_CELL = 16;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, InstanceProvider> providers = new LinkedHashMap<>();
+  private final MazeCache cache;
+  private final int maxCells;
+
+  /** Mémoire disponible pour les générations et résolutions en cours, en Kio */
+  private final Semaphore memory;
+  private final int memoryPermits;
+
+  /**
+   * Crée le serveur, qui n'accepte de requêtes qu'une fois {@link #start() démarré}.
+   *
+   * @param address   Adresse d'écoute, port 0 pour un port libre.
+   * @param providers Implémentations disponibles, la première étant utilisée par défaut.
+   * @param cache     Cache des labyrinthes générés.
+   * @param maxCells  Nombre maximal de cases d'un labyrinthe demandé.
+   * @throws IllegalArgumentException si aucune implémentation n'est fournie.
+   * @throws IOException si l'adresse ne peut être liée.
+   */
+  public MazeServer(InetSocketAddress address, List<InstanceProvider> providers, MazeCache cache, int maxCells)
+        throws IOException {
+    if (providers.isEmpty())
+      throw new IllegalArgumentException("No InstanceProvider");
+    for (InstanceProvider provider : providers)
+      this.providers.putIfAbsent(provider.generator().getClass().getSimpleName(), provider);
+    this.cache = cache;
+    this.maxCells = maxCells;
+
+    // La moitié du tas hors cache, le reste servant aux réponses et au ramasse-miettes
+    long budget = Math.max(Runtime.getRuntime().maxMemory() - cache.capacity(), 0) / 2;
+    memoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budget >> 10));
+    memory = new Semaphore(memoryPermits);
+
+    executor = newExecutor(Runtime.getRuntime().availableProcessors());
+    server = HttpServer.create(address, 0);
+    server.setExecutor(executor);
+    server.createContext("/maze", exchange -> handle(exchange, this::maze));
+    server.createContext("/solve", exchange -> handle(exchange, this::solve));
+    server.createContext("/stats", exchange -> handle(exchange, this::stats));
+  }
+
+  /**
+   * Démarre le serveur dans un thread d'acceptation dédié.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * @return Adresse effectivement liée.
+   */
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  /**
+   * @return Noms des générateurs disponibles, le premier étant celui par défaut.
+   */
+  public Set<String> generators() {
+    return Collections.unmodifiableSet(providers.keySet());
+  }
+
+  /**
+   * Arrête le serveur, sans attendre les requêtes en cours.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void maze(HttpExchange exchange, Query query) throws IOException, InterruptedException {
+    String format = query.value("format", "maze");
+    FrozenGridGraph maze = maze(query);
+    long seed = query.longValue("seed");
+
+    if (format.equals("maze")) {
+      exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+      if (send(exchange, MazeFile.size(maze.width(), maze.height()))) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          MazeFile.write(Channels.newChannel(out), maze, seed);
+        }
+      }
+    } else {
+      sendImage(exchange, query, format, new MazeImageWriter(maze));
+    }
+  }
+
+  private void solve(HttpExchange exchange, Query query) throws IOException, InterruptedException {
+    String format = query.value("format", "json");
+    FrozenGridGraph maze = maze(query);
+    int source = (int) query.longValue("from", 0, maze.nbVertices() - 1, 0);
+    int destination = (int) query.longValue("to", 0, maze.nbVertices() - 1, maze.nbVertices() - 1);
+
+    // Les traitements restent nécessaires jusqu'à l'envoi de l'image
+    int permits = reserve(maze.nbVertices(), SOLVE_BYTES_PER_CELL);
+    try {
+      ByteVertexLabelling treatments = new ByteVertexLabelling(maze.nbVertices());
+      List<Integer> path = provider(query).solver().solve(maze, source, destination, treatments);
+
+      if (format.equals("json")) {
+        StringBuilder json = new StringBuilder(32 + 8 * path.size())
+              .append("{\"width\":").append(maze.width())
+              .append(",\"height\":").append(maze.height())
+              .append(",\"from\":").append(source)
+              .append(",\"to\":").append(destination)
+              .append(",\"length\":").append(path.size())
+              .append(",\"path\":[");
+        for (int i = 0; i < path.size(); ++i)
+          json.append(i == 0 ? "" : ",").append(path.get(i));
+        sendJson(exchange, json.append("]}").toString());
+      } else {
+        for (int v : path)
+          treatments.setInt(v, -1);
+        sendImage(exchange, query, format, new MazeImageWriter(maze).setOverlay(treatments));
+      }
+    } finally {
+      memory.release(permits);
+    }
+  }
+
+  private void stats(HttpExchange exchange, Query query) throws IOException {
+    sendJson(exchange, "{\"entries\":" + cache.size()
+          + ",\"weight\":" + cache.weight()
+          + ",\"capacity\":" + cache.capacity()
+          + ",\"hits\":" + cache.hits()
+          + ",\"misses\":" + cache.misses()
+          + ",\"evictions\":" + cache.evictions()
+          + "}");
+  }
+
+  /**
+   * Récupère ou génère le labyrinthe désigné par la requête.
+   */
+  private FrozenGridGraph maze(Query query) throws InterruptedException {
+    InstanceProvider provider = provider(query);
+    int[] size = query.size("size", maxCells);
+    MazeCache.Key key = new MazeCache.Key(query.value("generator", defaultGenerator()),
+          size[0], size[1], query.longValue("seed"));
+
+    return cache.get(key, k -> {
+      int permits = reserve((long) k.width() * k.height(), GENERATION_BYTES_PER_CELL);
+      try {
+        GridMazeBuilder builder = new GridMazeBuilder(k.width(), k.height());
+        provider.generator(k.seed()).generate(builder, 0);
+        return FrozenGridGraph.copyOf(builder.maze());
+      } finally {
+        memory.release(permits);
+      }
+    });
+  }
+
+  /**
+   * Réserve la mémoire d'une génération ou d'une résolution, sans attendre.
+   *
+   * @return Nombre de permis à rendre à {@link #memory}.
+   * @throws RejectedExecutionException si les traitements en cours occupent déjà la mémoire.
+   */
+  private int reserve(long cells, long bytesPerCell) {
+    // Un traitement plus lourd que tout le budget peut encore passer seul
+    int permits = (int) Math.max(1, Math.min(memoryPermits, cells * bytesPerCell >> 10));
+    if (!memory.tryAcquire(permits))
+      throw new RejectedExecutionException("Server busy, retry later");
+    return permits;
+  }
+
+  private String defaultGenerator() {
+    return providers.keySet().iterator().next();
+  }
+
+  private InstanceProvider provider(Query query) {
+    String name = query.value("generator", defaultGenerator());
+    InstanceProvider provider = providers.get(name);
+    if (provider == null)
+      throw new IllegalArgumentException("Unknown generator: " + name + ", expected one of " + providers.keySet());
+    return provider;
+  }
+
+  private void sendImage(HttpExchange exchange, Query query, String format, MazeImageWriter writer)
+        throws IOException {
+    MazeImageWriter.Format imageFormat;
+    try {
+      imageFormat = MazeImageWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown format: " + format);
+    }
+    int scale = (int) query.longValue("scale", 1, MAX_SCALE, 1);
+    writer.setScale(scale);
+    if ((long) writer.imageWidth() * writer.imageHeight() > MAX_PIXELS)
+      throw new IllegalArgumentException("Image too large, reduce the scale");
+
+    exchange.getResponseHeaders().set("Content-Type", switch (imageFormat) {
+      case PBM -> "image/x-portable-bitmap";
+      case PGM -> "image/x-portable-graymap";
+      case PNG -> "image/png";
+    });
+    if (send(exchange, 0)) {
+      try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), BUFFER_SIZE)) {
+        writer.write(imageFormat, out);
+      }
+    }
+  }
+
+  private static void sendJson(HttpExchange exchange, String json) throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    if (send(exchange, body.length)) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  /**
+   * Envoie les en-têtes d'une réponse réussie.
+   *
+   * @param length Taille du corps, 0 si inconnue.
+   * @return {@code true} si le corps doit être envoyé, {@code false} pour une requête HEAD.
+   */
+  private static boolean send(HttpExchange exchange, long length) throws IOException {
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.sendResponseHeaders(200, -1);
+      return false;
+    }
+    exchange.sendResponseHeaders(200, length);
+    return true;
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+    byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Handler {
+    void handle(HttpExchange exchange, Query query) throws IOException, InterruptedException;
+  }
+
+  private static void handle(HttpExchange exchange, Handler handler) {
+    try (exchange) {
+      // Les contextes filtrent par préfixe, seul le chemin exact est servi
+      if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+        sendError(exchange, 404, "Not found");
+        return;
+      }
+      String method = exchange.getRequestMethod();
+      if (!method.equals("GET") && !method.equals("HEAD")) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        sendError(exchange, 405, "Method not allowed");
+        return;
+      }
+
+      try {
+        handler.handle(exchange, Query.parse(exchange.getRequestURI().getRawQuery()));
+      } catch (IllegalArgumentException e) {
+        sendError(exchange, 400, e.getMessage());
+      } catch (RejectedExecutionException e) {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        sendError(exchange, 503, "Interrupted");
+      } catch (RuntimeException e) {
+        sendError(exchange, 500, e.toString());
+      }
+    } catch (IOException e) {
+      // Client parti ou réponse déjà entamée : seule la connexion est perdue
+    }
+  }
+
+  /**
+   * Crée un exécuteur lançant un thread virtuel par tâche, via réflexion pour compiler en Java 17, ou à défaut
+   * un pool borné.
+   */
+  private static ExecutorService newExecutor(int threads) {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+            r -> new Thread(r, "maze-server-" + count.incrementAndGet()),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+  }
+
+  /**
+   * Paramètres d'une requête.
+   */
+  private static final class Query {
+    private final Map<String, String> values = new HashMap<>();
+
+    static Query parse(String raw) {
+      Query query = new Query();
+      if (raw == null)
+        return query;
+      for (String pair : raw.split("&")) {
+        int eq = pair.indexOf('=');
+        if (eq > 0) {
+          query.values.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+      }
+      return query;
+    }
+
+    String value(String name, String fallback) {
+      return values.getOrDefault(name, fallback);
+    }
+
+    String required(String name) {
+      String value = values.get(name);
+      if (value == null)
+        throw new IllegalArgumentException("Missing parameter: " + name);
+      return value;
+    }
+
+    long longValue(String name) {
+      String value = required(name);
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+      }
+    }
+
+    long longValue(String name, long min, long max, long fallback) {
+      long value = values.containsKey(name) ? longValue(name) : fallback;
+      if (value < min || value > max)
+        throw new IllegalArgumentException(name + " must be in [" + min + "," + max + "]");
+      return value;
+    }
+
+    int[] size(String name, int maxCells) {
+      String value = required(name);
+      int x = value.indexOf('x');
+      int width;
+      int height;
+      try {
+        width = Integer.parseInt(x < 0 ? value : value.substring(0, x));
+        height = x < 0 ? width : Integer.parseInt(value.substring(x + 1));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+      }
+      if (width <= 0 || height <= 0 || (long) width * height > maxCells)
+        throw new IllegalArgumentException("Size must be positive and at most " + maxCells + " cells");
+      return new int[] { width, height };
+    }
+  }
+}
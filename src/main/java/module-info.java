@@ -1,13 +1,23 @@
 module gre.lab2 {
-  requires javafx.controls;
-  requires javafx.fxml;
+  // JavaFX n'est requis que par l'interface graphique : la ligne de commande démarre sans lui
+  requires static javafx.controls;
+  requires static javafx.fxml;
+  requires jdk.jfr;
+  requires java.management;
+  requires jdk.httpserver;
 
+  exports gre.lab2.cli;
   exports gre.lab2.graph;
 
   exports gre.lab2.gui;
   opens gre.lab2.gui to javafx.fxml;
   exports gre.lab2.gui.impl;
   opens gre.lab2.gui.impl to javafx.fxml;
+  exports gre.lab2.io;
+  exports gre.lab2.server;
   exports gre.lab2.groupe11;
   opens gre.lab2.groupe11 to javafx.fxml;
+
+  uses gre.lab2.gui.InstanceProvider;
+  provides gre.lab2.gui.InstanceProvider with gre.lab2.groupe11.Groupe11InstanceProvider;
 }